@@ -0,0 +1,13 @@
+-- Indexes backing the delta (incremental) customer export.
+-- T002Dao.findChangedCustomers collects changed IDs with one UNION branch per
+-- audit column, so each branch can seek the matching index below.
+
+CREATE NONCLUSTERED INDEX IX_MSTCUSTOMER_UPDATE_YMD
+    ON MSTCUSTOMER (UPDATE_YMD);
+
+CREATE NONCLUSTERED INDEX IX_MSTCUSTOMER_INSERT_YMD
+    ON MSTCUSTOMER (INSERT_YMD);
+
+CREATE NONCLUSTERED INDEX IX_MSTCUSTOMER_DELETE_YMD
+    ON MSTCUSTOMER (DELETE_YMD)
+    WHERE DELETE_YMD IS NOT NULL;
@@ -0,0 +1,6 @@
+-- Lets read paths run under SNAPSHOT isolation (db.readIsolation=snapshot in
+-- dbConfig.properties) so searches and exports read row versions instead of
+-- waiting on the locks held by a running import. DBUtils falls back to
+-- locking READ COMMITTED while this option is off.
+
+ALTER DATABASE CustomerSystem SET ALLOW_SNAPSHOT_ISOLATION ON;
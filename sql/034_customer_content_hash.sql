@@ -0,0 +1,6 @@
+-- Content hash of the business columns of MSTCUSTOMER.
+-- Written by T003Dao and T004Dao (utils.ContentHash over CUSTOMER_NAME, SEX,
+-- BIRTHDAY, EMAIL, ADDRESS). Rows created before this script keep NULL until
+-- an import finds them unchanged and backfills the hash, or they are edited.
+
+ALTER TABLE MSTCUSTOMER ADD CONTENT_HASH BIGINT NULL;
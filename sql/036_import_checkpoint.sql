@@ -0,0 +1,11 @@
+-- Checkpoints of chunked-commit imports (T004).
+-- One row per file being imported, keyed by the SHA-256 of the upload.
+-- T004Dao moves LAST_ROW_NO forward in the same transaction as each chunk
+-- and deletes the row once the whole file is committed.
+
+CREATE TABLE IMPORT_CHECKPOINT (
+    FILE_HASH   CHAR(64) NOT NULL PRIMARY KEY,
+    LAST_ROW_NO INT      NOT NULL,
+    PSN_CD      INT      NULL,
+    UPDATE_YMD  DATETIME NOT NULL
+);
@@ -0,0 +1,8 @@
+-- Data version of MSTCUSTOMER for idempotent re-imports (T004).
+-- SQL Server advances the ROWVERSION of a row on every insert and update, and
+-- @@DBTS returns the last value used. T004Service records @@DBTS read just
+-- before each import commits and replays the result of an identical upload
+-- only while it is unchanged. No other table has a ROWVERSION column, so @@DBTS moves
+-- only when customers are written.
+
+ALTER TABLE MSTCUSTOMER ADD ROW_VER ROWVERSION NOT NULL;
@@ -0,0 +1,22 @@
+-- Archive of soft-deleted customers (MSTCUSTOMER_ARCHIVE).
+-- CustomerArchiveService moves rows whose DELETE_YMD is older than
+-- archive.retentionDays out of MSTCUSTOMER in small batches, and can move
+-- them back on restore. The table copies the column types of MSTCUSTOMER
+-- (without ROW_VER) and records when each row was archived.
+-- Delta exports only emit tombstones for rows still in MSTCUSTOMER, so
+-- consumers must poll more often than the retention period.
+
+SELECT TOP 0
+       CUSTOMER_ID, CUSTOMER_NAME, SEX, BIRTHDAY, EMAIL, ADDRESS,
+       DELETE_YMD, INSERT_YMD, INSERT_PSN_CD, UPDATE_YMD, UPDATE_PSN_CD,
+       CONTENT_HASH
+  INTO MSTCUSTOMER_ARCHIVE
+  FROM MSTCUSTOMER;
+
+ALTER TABLE MSTCUSTOMER_ARCHIVE ADD ARCHIVE_YMD DATETIME NOT NULL
+    CONSTRAINT DF_MSTCUSTOMER_ARCHIVE_ARCHIVE_YMD DEFAULT GETDATE();
+
+ALTER TABLE MSTCUSTOMER_ARCHIVE ALTER COLUMN CUSTOMER_ID INT NOT NULL;
+
+ALTER TABLE MSTCUSTOMER_ARCHIVE ADD CONSTRAINT PK_MSTCUSTOMER_ARCHIVE
+    PRIMARY KEY (CUSTOMER_ID);
@@ -0,0 +1,8 @@
+-- Index backing the reconcile of CustomerIdIndex.
+-- The reconcile reads every customer whose ROW_VER (added in
+-- 045_customer_row_version.sql) is at or above the MIN_ACTIVE_ROWVERSION()
+-- taken before the previous reconcile, so this index lets it seek the few
+-- rows changed since.
+
+CREATE NONCLUSTERED INDEX IX_MSTCUSTOMER_ROW_VER
+    ON MSTCUSTOMER (ROW_VER);
@@ -0,0 +1,27 @@
+package action;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+import service.CustomerArchiveService;
+import service.T004Service;
+
+/**
+ * Web application life-cycle listener, registered in {@code web.xml}.
+ * Starts the customer archiver, and stops it and the background import
+ * threads when the application is undeployed, so running work is interrupted
+ * instead of outliving the class loader.
+ */
+public class AppContextListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        CustomerArchiveService.getInstance().start();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        CustomerArchiveService.getInstance().shutdown();
+        T004Service.getInstance().shutdown();
+    }
+}
@@ -1,9 +1,11 @@
 package action;
 
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
+import java.io.File;
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -13,16 +15,21 @@ import org.apache.struts.action.Action;
 import org.apache.struts.action.ActionForm;
 import org.apache.struts.action.ActionForward;
 import org.apache.struts.action.ActionMapping;
+import org.apache.struts.action.ActionMessage;
+import org.apache.struts.action.ActionMessages;
 import org.apache.struts.actions.MappingDispatchAction;
 
 import common.Constants;
+import dto.T001Dto;
 import dto.T002SCO;
 import form.ColumnHeader;
 import form.T002Form;
 import form.T005Form;
 import service.T002Service;
 import service.T005Service;
+import utils.ExportFileStore;
 import utils.Helper;
+import utils.RangeFileSender;
 
 /**
  * Action class responsible for handling customer search, listing, deletion, and
@@ -37,18 +44,25 @@ public class T002Action extends Action {
 	/** Service layer instance for customer operations */
 	private static final T002Service t002Service = T002Service.getInstance();
 
+	/** Store of generated export files */
+	private static final ExportFileStore exportFileStore = ExportFileStore.getInstance();
+
 	/** Service layer instance for CSV export operations */
 	private static final T005Service t005Service = T005Service.getInstance();
 
 	/**
-	 * Executes customer-related actions (search, remove, export).
+	 * Executes customer-related actions (search, remove, restore, export).
 	 * <p>
 	 * - Validates session first (redirect to login if not logged in).  
 	 * - Reads the action from {@link T002Form}.  
 	 * - Routes request to the corresponding handler:  
 	 *   - {@code ACTION_REMOVE}: delete a customer.  
+	 *   - {@code ACTION_REMOVE_MATCHING}: delete every customer matching the current search.  
+	 *   - {@code ACTION_RESTORE}: restore archived customers by ID.  
 	 *   - {@code ACTION_SEARCH}: search for customers.  
 	 *   - {@code ACTION_EXPORT}: export customers to CSV.  
+	 *   - {@code ACTION_EXPORT_DELTA}: export customers changed since a watermark.  
+	 *   - {@code ACTION_DOWNLOAD}: download (or resume) a generated export file.  
 	 *   - Default: perform search.  
 	 * </p>
 	 *
@@ -84,12 +98,24 @@ public class T002Action extends Action {
 	        case Constants.ACTION_REMOVE:
 	            // Remove customer
 	            return deleteCustomer(mapping, form, request, response);
+	        case Constants.ACTION_REMOVE_MATCHING:
+	            // Remove every customer matching the current search
+	            return deleteMatchingCustomers(mapping, form, request, response);
+	        case Constants.ACTION_RESTORE:
+	            // Bring archived customers back
+	            return restoreCustomers(mapping, form, request, response);
 	        case Constants.ACTION_SEARCH:
 	            // Search customers
 	            return findCustomer(mapping, form, request, response);
 	        case Constants.ACTION_EXPORT:
 	            // Export customer list to CSV
 	            return exportCSV(mapping, form, request, response);
+	        case Constants.ACTION_EXPORT_DELTA:
+	            // Export only customers changed since the given watermark
+	            return exportDeltaCSV(mapping, form, request, response);
+	        case Constants.ACTION_DOWNLOAD:
+	            // Serve a previously generated export file with range support
+	            return downloadFile(mapping, form, request, response);
 	        default:
 	            // Fallback to searching customers
 	            return findCustomer(mapping, form, request, response);
@@ -126,6 +152,82 @@ public class T002Action extends Action {
 	}
 
 
+	/**
+	 * Handles the "delete all matching" action.
+	 * <p>
+	 * - Deletes every customer matching the search conditions (SCO) stored in
+	 *   session, across all pages, with one set-based update.  
+	 * - Refuses to run before a search, so that an empty session never means
+	 *   "delete everything".  
+	 * - Reports the number of deleted customers and refreshes the list.  
+	 * </p>
+	 *
+	 * @param mapping   the {@link ActionMapping} used to select this instance
+	 * @param form      the {@link ActionForm} of the search screen
+	 * @param request   the {@link HttpServletRequest} object
+	 * @param response  the {@link HttpServletResponse} object
+	 * @return the {@link ActionForward} pointing to the refreshed customer search view
+	 * @throws Exception if an error occurs during deletion
+	 */
+	public ActionForward deleteMatchingCustomers(ActionMapping mapping, ActionForm form, HttpServletRequest request,
+	        HttpServletResponse response) throws Exception {
+
+	    HttpSession session = request.getSession();
+	    T002SCO sco = (T002SCO) session.getAttribute(Constants.SESSION_T002_SCO);
+
+	    ActionMessages messages = new ActionMessages();
+	    if (sco == null) {
+	        messages.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_SEARCH_REQUIRED));
+	    } else {
+	        int deleted = t002Service.deleteMatchingCustomers(sco);
+	        messages.add(Constants.GLOBAL, new ActionMessage(Constants.SUCCESS_CUSTOMERS_DELETED, deleted));
+	    }
+	    // Shown through <html:errors/> like the other messages of this screen
+	    saveErrors(request, messages);
+
+	    return findCustomer(mapping, form, request, response);
+	}
+
+
+	/**
+	 * Handles the restore action.
+	 * <p>
+	 * - Parses the IDs of archived customers entered in {@link T002Form}.  
+	 * - Moves those customers back from the archive as active customers,
+	 *   recording the logged-in user as the updater. IDs that are not
+	 *   archived are ignored.  
+	 * - Reports the number of restored customers and refreshes the list.  
+	 * </p>
+	 *
+	 * @param mapping   the {@link ActionMapping} used to select this instance
+	 * @param form      the {@link ActionForm} containing the IDs to restore
+	 * @param request   the {@link HttpServletRequest} object
+	 * @param response  the {@link HttpServletResponse} object
+	 * @return the {@link ActionForward} pointing to the refreshed customer search view
+	 * @throws Exception if an error occurs during the restore
+	 */
+	public ActionForward restoreCustomers(ActionMapping mapping, ActionForm form, HttpServletRequest request,
+	        HttpServletResponse response) throws Exception {
+
+	    T002Form t002Form = (T002Form) form;
+
+	    ActionMessages messages = new ActionMessages();
+	    int[] customerIds = t002Service.parseRestoreIds(t002Form.getRestoreIds());
+	    if (customerIds == null) {
+	        messages.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_RESTORE_IDS_INVALID));
+	    } else {
+	        T001Dto loggedInUser = (T001Dto) request.getSession().getAttribute(Constants.SESSION_USER);
+	        Integer psnCd = (loggedInUser != null) ? loggedInUser.getPsnCd() : null;
+	        int restored = t002Service.restoreCustomers(customerIds, psnCd);
+	        messages.add(Constants.GLOBAL, new ActionMessage(Constants.SUCCESS_CUSTOMERS_RESTORED, restored));
+	    }
+	    // Shown through <html:errors/> like the other messages of this screen
+	    saveErrors(request, messages);
+
+	    return findCustomer(mapping, form, request, response);
+	}
+
+
 	/**
 	 * Core method that performs customer listing and searching with pagination.
 	 * <p>
@@ -158,16 +260,8 @@ public class T002Action extends Action {
 	    // Perform search with criteria from form and previous SCO
 	    sco = t002Service.searchCustomers(t002Form, sco);
 
-	    // Try to restore column headers from session if available
-	    T005Form sessionForm = (T005Form) session.getAttribute("columnHeader");
-	    if (sessionForm != null) {
-	        // Use saved custom column headers
-	        List<ColumnHeader> headers = sessionForm.getRightHeaders();
-	        t002Form.setColumnHeaders(headers);
-	    } else {
-	        // Fallback: use default column headers from service
-	        t002Form.setColumnHeaders(t005Service.getDefaultRightHeaders());
-	    }
+	    // Restore column headers from session, or fall back to the defaults
+	    t002Form.setColumnHeaders(resolveColumnHeaders(session));
 
 	    // Save updated search condition back to session
 	    session.setAttribute(Constants.SESSION_T002_SCO, sco);
@@ -180,19 +274,18 @@ public class T002Action extends Action {
 	 * Exports customer data to a CSV file based on search conditions.
 	 * <p>
 	 * - Retrieves the current search condition object (SCO) from session.  
-	 * - Calls the service layer to generate CSV data string.  
-	 * - Builds a dynamic file name for the export file.  
-	 * - Configures HTTP response headers to trigger a CSV file download.  
-	 * - Writes the CSV content directly to the response output stream.  
-	 * - Returns {@code null} because the response is already committed.  
+	 * - Writes the CSV data into a new file in the {@link ExportFileStore}.  
+	 * - Remembers the file ID in session so only this user can download it.  
+	 * - Redirects to the download action, whose URL stays valid so that an
+	 *   interrupted download can be resumed with an HTTP Range request.  
 	 * </p>
 	 *
 	 * @param mapping   the {@link ActionMapping} used to select this instance
 	 * @param form      the {@link ActionForm} containing search criteria
 	 * @param request   the {@link HttpServletRequest} being processed
-	 * @param response  the {@link HttpServletResponse} to which CSV data is written
-	 * @return {@code null} since the response is directly written to output stream
-	 * @throws Exception if an error occurs while generating or writing the CSV
+	 * @param response  the {@link HttpServletResponse} being created
+	 * @return a redirect to the download action for the generated file
+	 * @throws Exception if an error occurs while generating the CSV
 	 */
 	public ActionForward exportCSV(ActionMapping mapping, ActionForm form, HttpServletRequest request,
 	        HttpServletResponse response) throws Exception {
@@ -204,26 +297,157 @@ public class T002Action extends Action {
 	    HttpSession session = request.getSession();
 	    T002SCO sco = (T002SCO) session.getAttribute(Constants.SESSION_T002_SCO);
 
-	    // Generate CSV data string from service layer using form criteria and SCO
-	    String csvData = t002Service.exportCustomersToCSV(t002Form, sco);
+	    // Generate the CSV file using form criteria, SCO and the current header layout
+	    File file = exportFileStore.createFile();
+	    t002Service.exportCustomersToCSV(t002Form, sco, resolveColumnHeaders(session), file);
 
-	    // Generate a file name for the CSV export
-	    String fileName = t002Service.generateFileName();
+	    // Allow this session to download the file
+	    String fileId = exportFileStore.getFileId(file);
+	    getExportFileIds(session).add(fileId);
 
-	    // Configure HTTP response headers for CSV file download
-	    response.setContentType("text/csv; charset=UTF-8");
-	    response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
-	    response.setCharacterEncoding("UTF-8");
+	    // Redirect to a stable, resumable download URL
+	    return new ActionForward("/T002.do?" + Constants.PARAM_ACTION + "=" + Constants.ACTION_DOWNLOAD
+	            + "&" + Constants.PARAM_FILE_ID + "=" + fileId, true);
+	}
 
-	    // Write CSV data to response output stream using UTF-8 encoding
-	    try (PrintWriter writer = new PrintWriter(
-	            new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8))) {
-	        writer.write(csvData);
+	/**
+	 * Serves a generated export file with ETag, Last-Modified and Range support.
+	 * <p>
+	 * Only files generated in the current session can be downloaded. Unknown or
+	 * expired files answer {@code 404 Not Found}. Delta exports are sent with
+	 * their watermark header.
+	 * </p>
+	 *
+	 * @param mapping   the {@link ActionMapping} used to select this instance
+	 * @param form      the {@link ActionForm} containing the file ID
+	 * @param request   the {@link HttpServletRequest} being processed
+	 * @param response  the {@link HttpServletResponse} to which the file is written
+	 * @return {@code null} since the response is directly written to output stream
+	 * @throws Exception if an error occurs while sending the file
+	 */
+	public ActionForward downloadFile(ActionMapping mapping, ActionForm form, HttpServletRequest request,
+	        HttpServletResponse response) throws Exception {
+
+	    T002Form t002Form = (T002Form) form;
+	    String fileId = t002Form.getFileId();
+
+	    File file = getExportFileIds(request.getSession()).contains(fileId)
+	            ? exportFileStore.findFile(fileId) : null;
+	    if (file == null) {
+	        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+	        return null;
 	    }
 
-	    // Return null since response is already committed (download triggered)
+	    // Delta exports keep their own file name and watermark
+	    String watermark = getDeltaWatermarks(request.getSession()).get(fileId);
+	    String fileName = t002Service.generateFileName();
+	    if (watermark != null) {
+	        response.setHeader(Constants.HEADER_EXPORT_WATERMARK, watermark);
+	        fileName = t002Service.generateDeltaFileName();
+	    }
+
+	    RangeFileSender.send(request, response, file, fileName, "text/csv; charset=UTF-8");
 	    return null;
 	}
 
+	/**
+	 * Returns the set of export file IDs generated in this session.
+	 *
+	 * @param session the current HTTP session
+	 * @return the (mutable, thread-safe) set of file IDs
+	 */
+	@SuppressWarnings("unchecked")
+	private Set<String> getExportFileIds(HttpSession session) {
+	    Set<String> fileIds = (Set<String>) session.getAttribute(Constants.SESSION_EXPORT_FILES);
+	    if (fileIds == null) {
+	        fileIds = ConcurrentHashMap.newKeySet();
+	        session.setAttribute(Constants.SESSION_EXPORT_FILES, fileIds);
+	    }
+	    return fileIds;
+	}
+
+	/**
+	 * Exports the customers changed since a since-timestamp or watermark to a CSV file.
+	 * <p>
+	 * - Resolves the lower bound from the form ({@code watermark} wins over {@code since}).  
+	 * - Returns to the search screen with an error if neither value can be parsed.  
+	 * - Writes the delta CSV, including tombstones for soft-deleted customers,
+	 *   into a new file in the {@link ExportFileStore}.  
+	 * - Redirects to the resumable download action like {@link #exportCSV}. The
+	 *   watermark for the next call is returned in the {@code X-Export-Watermark}
+	 *   header of both the redirect and the download.  
+	 * </p>
+	 *
+	 * @param mapping   the {@link ActionMapping} used to select this instance
+	 * @param form      the {@link ActionForm} containing the since-timestamp or watermark
+	 * @param request   the {@link HttpServletRequest} being processed
+	 * @param response  the {@link HttpServletResponse} being created
+	 * @return a redirect to the download action for the generated file,
+	 *         or the search page if the lower bound is invalid
+	 * @throws Exception if an error occurs while generating the CSV
+	 */
+	public ActionForward exportDeltaCSV(ActionMapping mapping, ActionForm form, HttpServletRequest request,
+	        HttpServletResponse response) throws Exception {
+
+	    T002Form t002Form = (T002Form) form;
+
+	    // Resolve the lower bound of the delta
+	    Timestamp since = t002Service.resolveDeltaSince(t002Form.getSince(), t002Form.getWatermark());
+	    if (since == null) {
+	        ActionMessages errors = new ActionMessages();
+	        errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_DELTA_SINCE_INVALID));
+	        saveErrors(request, errors);
+	        return findCustomer(mapping, form, request, response);
+	    }
+
+	    File file = exportFileStore.createFile();
+	    String watermark = t002Service.exportChangedCustomersToCSV(since, file);
+
+	    // Allow this session to download the file, and remember its watermark
+	    HttpSession session = request.getSession();
+	    String fileId = exportFileStore.getFileId(file);
+	    getDeltaWatermarks(session).put(fileId, watermark);
+	    getExportFileIds(session).add(fileId);
+
+	    response.setHeader(Constants.HEADER_EXPORT_WATERMARK, watermark);
+	    return new ActionForward("/T002.do?" + Constants.PARAM_ACTION + "=" + Constants.ACTION_DOWNLOAD
+	            + "&" + Constants.PARAM_FILE_ID + "=" + fileId, true);
+	}
+
+	/**
+	 * Returns the watermarks of the delta export files generated in this session.
+	 *
+	 * @param session the current HTTP session
+	 * @return the (mutable, thread-safe) map of file ID to watermark token
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, String> getDeltaWatermarks(HttpSession session) {
+	    Map<String, String> watermarks = (Map<String, String>) session.getAttribute(Constants.SESSION_DELTA_WATERMARKS);
+	    if (watermarks == null) {
+	        watermarks = new ConcurrentHashMap<>();
+	        session.setAttribute(Constants.SESSION_DELTA_WATERMARKS, watermarks);
+	    }
+	    return watermarks;
+	}
+
+	/**
+	 * Resolves the right-hand column headers configured on the T005 screen.
+	 * <p>
+	 * Uses the layout saved in session if available; otherwise falls back to the
+	 * default column headers from {@link T005Service}.
+	 * </p>
+	 *
+	 * @param session the current HTTP session
+	 * @return the ordered list of visible column headers
+	 */
+	private List<ColumnHeader> resolveColumnHeaders(HttpSession session) {
+	    T005Form sessionForm = (T005Form) session.getAttribute(Constants.SESSION_COLUMN_HEADER);
+	    if (sessionForm != null) {
+	        // Use saved custom column headers
+	        return sessionForm.getRightHeaders();
+	    }
+	    // Fallback: use default column headers from service
+	    return t005Service.getDefaultRightHeaders();
+	}
 
-}
\ No newline at end of file
+}
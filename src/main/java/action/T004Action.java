@@ -1,5 +1,11 @@
 package action;
 
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
@@ -8,17 +14,22 @@ import org.apache.struts.action.Action;
 import org.apache.struts.action.ActionForm;
 import org.apache.struts.action.ActionForward;
 import org.apache.struts.action.ActionMapping;
+import org.apache.struts.action.ActionMessage;
 import org.apache.struts.action.ActionMessages;
 
 import common.Constants;
 import dto.T001Dto;
 import form.T004Form;
+import service.ImportJob;
 import service.T004Service;
 import utils.Helper;
+import utils.RangeFileSender;
 
 /**
  * Action class for handling T004 import functionality.
  * Handles import requests, session validation, and message handling.
+ * Imports run as background jobs; this action submits them, reports their
+ * progress and shows their summary.
  */
 public class T004Action extends Action {
 
@@ -43,23 +54,38 @@ public class T004Action extends Action {
         }
         T004Form t004Form = (T004Form) form;
         String action = t004Form.getAction();
-        // Check if the action is import
-        if (Constants.ACTION_IMPORT.equals(action)) {
+        // Check if the action is import or a validation-only dry run
+        if (Constants.ACTION_IMPORT.equals(action) || Constants.ACTION_DRY_RUN.equals(action)) {
             return processImport(mapping, t004Form, request);
         }
+        // Progress of a running import, polled by T004.js
+        if (Constants.ACTION_PROGRESS.equals(action)) {
+            return writeProgress(t004Form, request, response);
+        }
+        // Import page for a job: progress while running, summary once done
+        if (Constants.ACTION_RESULT.equals(action)) {
+            return showResult(mapping, t004Form, request);
+        }
+        // Full validation error report of a finished import
+        if (Constants.ACTION_ERROR_REPORT.equals(action)) {
+            return downloadErrorReport(t004Form, request, response);
+        }
         // Default forward to import page
         return mapping.findForward(Constants.T004_IMPORT);
     }
 
     /**
      * Processes the import action.
-     * Retrieves logged-in user, calls service to import file, and handles success/errors messages.
+     * Retrieves logged-in user and submits the file as a background import job,
+     * then redirects to the job's result page, which polls until it is done.
+     * The container thread is released as soon as the upload is copied.
+     * The {@code dryRun} action submits a validation-only job the same way.
      *
      * @param mapping ActionMapping for this request
      * @param form    T004Form containing uploaded file and other form data
      * @param request HttpServletRequest object
-     * @return ActionForward destination after import processing
-     * @throws Exception if any error occurs during import
+     * @return redirect to the job's result page, or the import page if the queue is full
+     * @throws Exception if the upload cannot be copied
      */
     private ActionForward processImport(ActionMapping mapping, T004Form form, HttpServletRequest request)
             throws Exception {
@@ -67,18 +93,143 @@ public class T004Action extends Action {
         HttpSession session = request.getSession(false);
         T001Dto loggedInUser = (T001Dto) session.getAttribute(Constants.SESSION_USER);
         Integer psnCd = (loggedInUser != null) ? loggedInUser.getPsnCd() : null;
-        // Prepare ActionMessages for success messages
-        ActionMessages messages = new ActionMessages();
-        // Call service to import file; returns errors if any
-        ActionMessages errors = t004Service.importFile(form.getUploadFile(), psnCd, messages);
-        if (!errors.isEmpty()) {
-            // If there are errors, save them into request scope
+
+        ImportJob job;
+        try {
+            job = Constants.ACTION_DRY_RUN.equals(form.getAction())
+                    ? t004Service.submitDryRun(form.getUploadFile(), psnCd)
+                    : t004Service.submitImport(form.getUploadFile(), psnCd, form.isChunkedCommit());
+        } catch (RejectedExecutionException e) {
+            ActionMessages errors = new ActionMessages();
+            errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_BUSY));
+            saveErrors(request, errors);
+            return mapping.findForward(Constants.T004_IMPORT);
+        }
+
+        // Allow this session to follow the job
+        getImportJobIds(session).add(job.getJobId());
+
+        // Redirect, so reloading the page polls the job instead of uploading again
+        return new ActionForward("/T004.do?" + Constants.PARAM_ACTION + "=" + Constants.ACTION_RESULT
+                + "&" + Constants.PARAM_JOB_ID + "=" + job.getJobId(), true);
+    }
+
+    /**
+     * Shows the import page for a job. While the job runs, the page polls its
+     * progress; once it is done, its messages are shown exactly as the
+     * synchronous import used to show them.
+     *
+     * @param mapping ActionMapping for this request
+     * @param form    T004Form containing the job ID
+     * @param request HttpServletRequest object
+     * @return the import page
+     */
+    private ActionForward showResult(ActionMapping mapping, T004Form form, HttpServletRequest request) {
+        ImportJob job = findSessionJob(request, form.getJobId());
+        if (job == null) {
+            ActionMessages errors = new ActionMessages();
+            errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_JOB_NOT_FOUND));
             saveErrors(request, errors);
+        } else if (!job.isFinished()) {
+            request.setAttribute(Constants.PARAM_JOB_ID, job.getJobId());
         } else {
-            // If successful, save success messages into request scope
-            saveErrors(request, messages);
+            // Errors and success messages are both shown through <html:errors/>
+            saveErrors(request, job.getMessages());
+            if (job.getErrorReport() != null) {
+                // Not PARAM_JOB_ID: that attribute makes the page poll
+                request.setAttribute(Constants.PARAM_ERROR_REPORT, job.getJobId());
+            }
         }
-        // Forward to the import page
         return mapping.findForward(Constants.T004_IMPORT);
     }
+
+    /**
+     * Writes the progress of a job as JSON. Unknown jobs answer
+     * {@code 404 Not Found}.
+     *
+     * @param form     T004Form containing the job ID
+     * @param request  HttpServletRequest object
+     * @param response HttpServletResponse the JSON is written to
+     * @return {@code null} since the response is written directly
+     * @throws Exception if the response cannot be written
+     */
+    private ActionForward writeProgress(T004Form form, HttpServletRequest request, HttpServletResponse response)
+            throws Exception {
+        ImportJob job = findSessionJob(request, form.getJobId());
+        if (job == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return null;
+        }
+
+        StringBuilder json = new StringBuilder(160);
+        json.append("{\"status\":\"").append(job.getStatus().name()).append('"')
+            .append(",\"finished\":").append(job.isFinished())
+            .append(",\"parsed\":").append(job.getRowsParsed())
+            .append(",\"validated\":").append(job.getRowsValidated())
+            .append(",\"written\":").append(job.getRowsWritten())
+            .append(",\"inserted\":").append(job.getRowsInserted())
+            .append(",\"updated\":").append(job.getRowsUpdated())
+            .append('}');
+
+        response.setContentType("application/json; charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        PrintWriter writer = response.getWriter();
+        writer.write(json.toString());
+        writer.flush();
+        return null;
+    }
+
+    /**
+     * Serves the CSV report of all validation errors of a job, with range
+     * support. Answers {@code 404 Not Found} if the job has no report or the
+     * report has expired.
+     *
+     * @param form     T004Form containing the job ID
+     * @param request  HttpServletRequest object
+     * @param response HttpServletResponse the file is written to
+     * @return {@code null} since the response is written directly
+     * @throws Exception if the file cannot be sent
+     */
+    private ActionForward downloadErrorReport(T004Form form, HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        ImportJob job = findSessionJob(request, form.getJobId());
+        File report = job != null ? job.getErrorReport() : null;
+        if (report == null || !report.isFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return null;
+        }
+        RangeFileSender.send(request, response, report, "import-errors.csv", "text/csv; charset=UTF-8");
+        return null;
+    }
+
+    /**
+     * Looks up a job submitted in the current session.
+     *
+     * @param request HttpServletRequest object
+     * @param jobId   the job ID
+     * @return the job, or null if it is unknown, expired or from another session
+     */
+    private ImportJob findSessionJob(HttpServletRequest request, String jobId) {
+        HttpSession session = request.getSession(false);
+        if (session == null || jobId == null || !getImportJobIds(session).contains(jobId)) {
+            return null;
+        }
+        return t004Service.findJob(jobId);
+    }
+
+    /**
+     * Returns the set of import job IDs submitted in this session.
+     *
+     * @param session the current HTTP session
+     * @return the (mutable, thread-safe) set of job IDs
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> getImportJobIds(HttpSession session) {
+        Set<String> jobIds = (Set<String>) session.getAttribute(Constants.SESSION_IMPORT_JOBS);
+        if (jobIds == null) {
+            jobIds = ConcurrentHashMap.newKeySet();
+            session.setAttribute(Constants.SESSION_IMPORT_JOBS, jobIds);
+        }
+        return jobIds;
+    }
 }
@@ -55,6 +55,12 @@ public class Constants {
     /** Action parameter for removing/deleting a record. */
     public static final String ACTION_REMOVE = "remove";
 
+    /** Action parameter for deleting every record matching the current search. */
+    public static final String ACTION_REMOVE_MATCHING = "removeMatching";
+
+    /** Action parameter for restoring archived records. */
+    public static final String ACTION_RESTORE = "restore";
+
     /** Action parameter for searching records. */
     public static final String ACTION_SEARCH = "search";
 
@@ -67,9 +73,27 @@ public class Constants {
     /** Action parameter for exporting data. */
     public static final String ACTION_EXPORT = "export";
 
+    /** Action parameter for exporting only the rows changed since a watermark. */
+    public static final String ACTION_EXPORT_DELTA = "exportDelta";
+
+    /** Action parameter for downloading a generated export file. */
+    public static final String ACTION_DOWNLOAD = "download";
+
     /** Action parameter for importing data. */
     public static final String ACTION_IMPORT = "import";
 
+    /** Action parameter for validating an import file without writing it. */
+    public static final String ACTION_DRY_RUN = "dryRun";
+
+    /** Action parameter for polling the progress of an import job. */
+    public static final String ACTION_PROGRESS = "progress";
+
+    /** Action parameter for showing an import job: its progress while running, its summary once done. */
+    public static final String ACTION_RESULT = "result";
+
+    /** Action parameter for downloading the full validation error report of an import job. */
+    public static final String ACTION_ERROR_REPORT = "errorReport";
+
     /** Action parameter for moving selected item(s) left. */
     public static final String ACTION_MOVE_LEFT = "moveLeft";
 
@@ -121,6 +145,15 @@ public class Constants {
     /** Session attribute key for temporary column header backup. */
     public static final String SESSION_COLUMN_HEADER_TEMPORARY = "columnHeaderTemporary";
 
+    /** Session attribute key for the IDs of export files generated in this session. */
+    public static final String SESSION_EXPORT_FILES = "exportFiles";
+
+    /** Session attribute key for the watermarks of delta export files, by file ID. */
+    public static final String SESSION_DELTA_WATERMARKS = "deltaWatermarks";
+
+    /** Session attribute key for the IDs of import jobs submitted in this session. */
+    public static final String SESSION_IMPORT_JOBS = "importJobs";
+
 
     // ============================================================
     // Request / Form parameters
@@ -135,6 +168,15 @@ public class Constants {
     /** Request parameter key for the list of customers. */
     public static final String PARAM_CUSTOMERS = "customers";
 
+    /** Request parameter key for the ID of a generated export file. */
+    public static final String PARAM_FILE_ID = "fileId";
+
+    /** Request parameter (and request attribute) key for the ID of an import job. */
+    public static final String PARAM_JOB_ID = "jobId";
+
+    /** Request attribute key holding the ID of a finished import job that has a downloadable error report. */
+    public static final String PARAM_ERROR_REPORT = "errorReport";
+
     /** Request parameter key for total record count. */
     public static final String PARAM_TOTAL_COUNT = "totalCount";
 
@@ -149,6 +191,21 @@ public class Constants {
     /** Error key for missing customer ID. */
     public static final String ERROR_CUSTOMER_ID_REQUIRED = "error.customerId.required";
 
+    /** Error key when "delete all matching" is requested before any search. */
+    public static final String ERROR_SEARCH_REQUIRED = "error.search.required";
+
+    /** Message key reporting how many customers "delete all matching" deleted. */
+    public static final String SUCCESS_CUSTOMERS_DELETED = "success.customers.deleted";
+
+    /** Error key when no customer IDs are entered for a restore. */
+    public static final String ERROR_RESTORE_IDS_REQUIRED = "error.restore.ids.required";
+
+    /** Error key when the customer IDs entered for a restore are not numbers. */
+    public static final String ERROR_RESTORE_IDS_INVALID = "error.restore.ids.invalid";
+
+    /** Message key reporting how many archived customers a restore brought back. */
+    public static final String SUCCESS_CUSTOMERS_RESTORED = "success.customers.restored";
+
     /** Error key for missing user ID. */
     public static final String ERROR_USER_ID_REQUIRED = "error.userId.required";
 
@@ -170,6 +227,12 @@ public class Constants {
     /** Error key for invalid email format. */
     public static final String ERROR_EMAIL_INVALID = "error.email.invalid";
 
+    /** Error key when neither a since-timestamp nor a watermark is given for a delta export. */
+    public static final String ERROR_DELTA_SINCE_REQUIRED = "error.delta.since.required";
+
+    /** Error key when the since-timestamp or watermark of a delta export is invalid. */
+    public static final String ERROR_DELTA_SINCE_INVALID = "error.delta.since.invalid";
+
     /** Error key when trying to remove non-removable column headers. */
     public static final String ERROR_CANNOT_REMOVE = "error.headerItem.cannotRemove";
 
@@ -190,6 +253,9 @@ public class Constants {
     /** Error key when the import file is empty. */
     public static final String ERROR_IMPORT_EMPTY = "error.import.empty";
 
+    /** Error key when a compressed import file expands beyond the allowed size. */
+    public static final String ERROR_IMPORT_TOO_LARGE = "error.import.tooLarge";
+
     /** Error key when a customer ID in the import file does not exist in DB. */
     public static final String ERROR_IMPORT_CUSTOMER_ID_NOT_EXIST = "error.import.customerId.notExist";
 
@@ -214,6 +280,9 @@ public class Constants {
     /** Error key when address exceeds the allowed length. */
     public static final String ERROR_IMPORT_ADDRESS_TOO_LONG = "error.import.address.tooLong";
 
+    /** Error key when a row repeats an earlier row of the import file. */
+    public static final String ERROR_IMPORT_DUPLICATE = "error.import.duplicate";
+
 
     /** General import error message key. */
     public static final String ERROR_IMPORT_MESSAGE = "error.import.message";
@@ -232,6 +301,42 @@ public class Constants {
     /** Success key when existing data is updated during import. */
     public static final String SUCCESS_IMPORT_UPDATED = "success.import.updated";
 
+    /** Success key when a chunked import resumed after an earlier attempt. */
+    public static final String SUCCESS_IMPORT_RESUMED = "success.import.resumed";
+
+    /** Success key listing how many duplicate rows of the import file were skipped. */
+    public static final String SUCCESS_IMPORT_DUPLICATES_SKIPPED = "success.import.duplicatesSkipped";
+
+    /** Success key when an identical upload was answered with an earlier import's result. */
+    public static final String SUCCESS_IMPORT_ALREADY_IMPORTED = "success.import.alreadyImported";
+
+    /** Success key when a dry run found the file valid, with the expected counts. */
+    public static final String SUCCESS_IMPORT_DRY_RUN = "success.import.dryRun";
+
+    /** Error key heading the validation errors of a dry run. */
+    public static final String ERROR_IMPORT_DRY_RUN = "error.import.dryRun";
+
+    /** Error key when a chunk of a chunked import failed. */
+    public static final String ERROR_IMPORT_CHUNK_FAILED = "error.import.chunk.failed";
+
+    /** Error key when a parallel import was only partly committed. */
+    public static final String ERROR_IMPORT_PARTIAL = "error.import.partial";
+
+    /** Error key listing the lines a partly committed import did not save. */
+    public static final String ERROR_IMPORT_NOT_SAVED = "error.import.notSaved";
+
+    /** Error key when an import job failed unexpectedly. */
+    public static final String ERROR_IMPORT_EXCEPTION = "error.import.exception";
+
+    /** Error key when the import job queue is full. */
+    public static final String ERROR_IMPORT_BUSY = "error.import.busy";
+
+    /** Error key when an import job is unknown or expired. */
+    public static final String ERROR_IMPORT_JOB_NOT_FOUND = "error.import.job.notFound";
+
+    /** Error key noting that only the first validation errors are shown. */
+    public static final String ERROR_IMPORT_TRUNCATED = "error.import.truncated";
+
 
     // ============================================================
     // Validation limits
@@ -277,6 +382,15 @@ public class Constants {
     /** Date format used in CSV filenames. */
     public static final String CSV_DATE_FORMAT = "yyyyMMdd";
 
+    /** Prefix for delta (incremental) export filenames. */
+    public static final String CSV_DELTA_FILE_PREFIX = "Customer_delta_";
+
+    /** Accepted format of the since-timestamp of a delta export. */
+    public static final String DELTA_SINCE_PATTERN = "yyyy/MM/dd HH:mm:ss";
+
+    /** Response header carrying the watermark to use for the next delta export. */
+    public static final String HEADER_EXPORT_WATERMARK = "X-Export-Watermark";
+
 
     // ============================================================
     // Column header definitions
@@ -288,6 +402,21 @@ public class Constants {
     /** Internal column header name for customer ID. */
     public static final String HEADER_CUSTOMER_ID = "customerID";
 
+    /** Internal column header name for customer name. */
+    public static final String HEADER_CUSTOMER_NAME = "customerName";
+
+    /** Internal column header name for sex. */
+    public static final String HEADER_SEX = "sex";
+
+    /** Internal column header name for birthday. */
+    public static final String HEADER_BIRTHDAY = "birthday";
+
+    /** Internal column header name for email. */
+    public static final String HEADER_EMAIL = "email";
+
+    /** Internal column header name for address. */
+    public static final String HEADER_ADDRESS = "address";
+
     /** Display label for checkbox column. */
     public static final String LABEL_CHECKBOX = "CheckBox";
 
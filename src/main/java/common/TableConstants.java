@@ -32,5 +32,20 @@ public final class TableConstants {
     public static final String CUST_INSERT_PSN_CD    = "INSERT_PSN_CD";
     public static final String CUST_UPDATE_YMD       = "UPDATE_YMD";
     public static final String CUST_UPDATE_PSN_CD    = "UPDATE_PSN_CD";
+    public static final String CUST_CONTENT_HASH     = "CONTENT_HASH";
+    public static final String CUST_ROW_VER          = "ROW_VER";
+
+    // ---------------- MSTCUSTOMER_ARCHIVE ----------------
+    public static final String TABLE_MSTCUSTOMER_ARCHIVE = "MSTCUSTOMER_ARCHIVE";
+
+    public static final String ARCH_ARCHIVE_YMD      = "ARCHIVE_YMD";
+
+    // ---------------- IMPORT_CHECKPOINT ----------------
+    public static final String TABLE_IMPORT_CHECKPOINT = "IMPORT_CHECKPOINT";
+
+    public static final String CKPT_FILE_HASH        = "FILE_HASH";
+    public static final String CKPT_LAST_ROW_NO      = "LAST_ROW_NO";
+    public static final String CKPT_PSN_CD           = "PSN_CD";
+    public static final String CKPT_UPDATE_YMD       = "UPDATE_YMD";
 
 }
@@ -0,0 +1,162 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import common.TableConstants;
+import utils.DBUtils;
+
+/**
+ * DAO moving soft-deleted customers between {@code MSTCUSTOMER} and
+ * {@code MSTCUSTOMER_ARCHIVE}.
+ * <p>
+ * Each move is a single {@code DELETE ... OUTPUT ... INTO} statement, so a
+ * row is always in exactly one of the two tables, even if the statement fails
+ * half way or two application servers archive at the same time.
+ * </p>
+ */
+public class CustomerArchiveDao {
+
+    /** Singleton instance */
+    private static final CustomerArchiveDao instance = new CustomerArchiveDao();
+
+    /** Columns copied between the two tables, in this order */
+    private static final String[] COLUMNS = {
+        TableConstants.CUST_CUSTOMER_ID,
+        TableConstants.CUST_CUSTOMER_NAME,
+        TableConstants.CUST_SEX,
+        TableConstants.CUST_BIRTHDAY,
+        TableConstants.CUST_EMAIL,
+        TableConstants.CUST_ADDRESS,
+        TableConstants.CUST_DELETE_YMD,
+        TableConstants.CUST_INSERT_YMD,
+        TableConstants.CUST_INSERT_PSN_CD,
+        TableConstants.CUST_UPDATE_YMD,
+        TableConstants.CUST_UPDATE_PSN_CD,
+        TableConstants.CUST_CONTENT_HASH
+    };
+
+    /** Private constructor to prevent external instantiation */
+    private CustomerArchiveDao() {}
+
+    /**
+     * Returns the singleton instance of {@code CustomerArchiveDao}.
+     *
+     * @return singleton instance
+     */
+    public static CustomerArchiveDao getInstance() {
+        return instance;
+    }
+
+    /**
+     * Moves up to {@code batchRows} customers soft-deleted more than
+     * {@code retentionDays} days ago into the archive. Runs in autocommit, so
+     * each batch holds its locks only for its own rows; rows locked by other
+     * sessions are skipped and picked up by a later batch.
+     *
+     * @param retentionDays days a soft-deleted customer stays in {@code MSTCUSTOMER}
+     * @param batchRows     largest number of rows moved
+     * @return the number of rows moved
+     * @throws SQLException if the statement fails
+     */
+    public int archiveBatch(int retentionDays, int batchRows) throws SQLException {
+        try (Connection conn = DBUtils.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(buildArchiveSql())) {
+            ps.setInt(1, batchRows);
+            ps.setInt(2, retentionDays);
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Moves archived customers back into {@code MSTCUSTOMER} as active
+     * customers: {@code DELETE_YMD} is cleared and the update audit columns
+     * are set. Restored IDs are added to {@link CustomerIdIndex}. IDs that
+     * are not archived are ignored.
+     *
+     * @param customerIds IDs of archived customers
+     * @param psnCd       personal code of the operator
+     * @return the number of customers restored
+     * @throws SQLException if the statements fail; nothing is restored then
+     */
+    public int restoreCustomers(int[] customerIds, Integer psnCd) throws SQLException {
+        if (customerIds == null || customerIds.length == 0) return 0;
+
+        int[] counts;
+        try (Connection conn = DBUtils.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(buildRestoreSql())) {
+                for (int customerId : customerIds) {
+                    ps.setInt(1, psnCd);
+                    ps.setInt(2, customerId);
+                    ps.addBatch();
+                }
+                counts = ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        int restored = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                CustomerIdIndex.getInstance().add(customerIds[i]);
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Build SQL moving one batch into the archive.
+     * Parameters: batch size, retention in days.
+     *
+     * @return SQL string
+     */
+    private String buildArchiveSql() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("DELETE TOP (?) FROM ").append(TableConstants.TABLE_MSTCUSTOMER)
+          .append(" WITH (ROWLOCK, READPAST) OUTPUT ");
+        for (int i = 0; i < COLUMNS.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append("DELETED.").append(COLUMNS[i]);
+        }
+        sb.append(" INTO ").append(TableConstants.TABLE_MSTCUSTOMER_ARCHIVE).append(" (")
+          .append(String.join(", ", COLUMNS)).append(")")
+          .append(" WHERE ").append(TableConstants.CUST_DELETE_YMD)
+          .append(" < DATEADD(DAY, -?, GETDATE())");
+        return sb.toString();
+    }
+
+    /**
+     * Build SQL moving one customer back out of the archive, reactivated.
+     * Parameters: personal code, customer ID.
+     *
+     * @return SQL string
+     */
+    private String buildRestoreSql() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("DELETE FROM ").append(TableConstants.TABLE_MSTCUSTOMER_ARCHIVE).append(" OUTPUT ");
+        for (int i = 0; i < COLUMNS.length; i++) {
+            String column = COLUMNS[i];
+            sb.append(i == 0 ? "" : ", ");
+            if (TableConstants.CUST_DELETE_YMD.equals(column)) {
+                sb.append("NULL");
+            } else if (TableConstants.CUST_UPDATE_YMD.equals(column)) {
+                sb.append("CURRENT_TIMESTAMP");
+            } else if (TableConstants.CUST_UPDATE_PSN_CD.equals(column)) {
+                sb.append("?");
+            } else {
+                sb.append("DELETED.").append(column);
+            }
+        }
+        sb.append(" INTO ").append(TableConstants.TABLE_MSTCUSTOMER).append(" (")
+          .append(String.join(", ", COLUMNS)).append(")")
+          .append(" WHERE ").append(TableConstants.CUST_CUSTOMER_ID).append(" = ?");
+        return sb.toString();
+    }
+}
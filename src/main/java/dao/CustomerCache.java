@@ -0,0 +1,198 @@
+package dao;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dto.T002Dto;
+import utils.AppConfig;
+
+/**
+ * Read-through cache of active customers by ID for the T003 edit screen.
+ * <p>
+ * Users open the same customers from the T002 list again and again, so
+ * {@link T003Dao#getCustomerById} looks here before querying. The cache is
+ * filled and kept current by the DAOs:
+ * </p>
+ * <ul>
+ *   <li>{@link T003Dao#getCustomerById} caches what it loads.</li>
+ *   <li>{@link T002Dao} caches the rows of every search page it fetches.</li>
+ *   <li>{@link T003Dao#updateCustomer} writes the stored values through.</li>
+ *   <li>{@link T002Dao} deletes evict the deleted IDs, and an import clears
+ *       the whole cache once its write pass ends.</li>
+ * </ul>
+ * <p>
+ * A load that overlaps a write could otherwise cache the value from before
+ * the write. Every write therefore increments a generation, and a loader
+ * takes the generation before it queries; {@link #put} drops the row if the
+ * generation has moved since. Changes made outside this application are
+ * seen once an entry expires. The cache is an LRU of
+ * {@code customerCache.maxEntries} entries that live for
+ * {@code customerCache.ttlSeconds}; callers only ever see copies.
+ * </p>
+ */
+public class CustomerCache {
+
+    /** Singleton eager instance */
+    private static final CustomerCache instance = new CustomerCache();
+
+    /** How long an entry may be served */
+    private final long ttlMillis =
+            Math.max(0, AppConfig.getInstance().getLong("customerCache.ttlSeconds", 300)) * 1000L;
+
+    /** Cached customers by ID, least recently used first; guarded by {@code this} */
+    private final Map<Integer, Entry> entries;
+
+    /** Incremented by every write; guarded by {@code this} */
+    private long generation;
+
+    /** One cached customer */
+    private static final class Entry {
+
+        /** The customer; never handed out */
+        final T002Dto customer;
+
+        /** When the entry stops being served */
+        final long expiresAt;
+
+        Entry(T002Dto customer, long expiresAt) {
+            this.customer = customer;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** Private constructor to prevent external instantiation */
+    private CustomerCache() {
+        int maxEntries = Math.max(0, AppConfig.getInstance().getInt("customerCache.maxEntries", 10000));
+        this.entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the singleton instance of {@code CustomerCache}.
+     *
+     * @return the singleton instance
+     */
+    public static CustomerCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the current generation. Take it before querying the rows that
+     * are then passed to {@link #put} or {@link #putAll}.
+     *
+     * @return the generation
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Looks up an active customer.
+     *
+     * @param customerId the customer ID
+     * @return a copy of the cached customer, or null if not cached or expired
+     */
+    public synchronized T002Dto get(int customerId) {
+        Entry entry = entries.get(customerId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(customerId);
+            return null;
+        }
+        return copy(entry.customer);
+    }
+
+    /**
+     * Caches a customer loaded from the database, unless a write happened
+     * since the load began.
+     *
+     * @param customer   the active customer as read
+     * @param generation {@link #generation()} taken before the query
+     */
+    public synchronized void put(T002Dto customer, long generation) {
+        if (generation == this.generation) {
+            store(customer);
+        }
+    }
+
+    /**
+     * Caches customers loaded from the database, unless a write happened
+     * since the load began.
+     *
+     * @param customers  active customers as read
+     * @param generation {@link #generation()} taken before the query
+     */
+    public synchronized void putAll(List<T002Dto> customers, long generation) {
+        if (generation == this.generation) {
+            for (T002Dto customer : customers) {
+                store(customer);
+            }
+        }
+    }
+
+    /**
+     * Caches a customer just written, replacing what loads in flight read.
+     *
+     * @param customer the active customer as stored
+     */
+    public synchronized void write(T002Dto customer) {
+        generation++;
+        store(customer);
+    }
+
+    /**
+     * Evicts customers that were deleted.
+     *
+     * @param customerIds the deleted IDs
+     */
+    public synchronized void invalidateAll(int[] customerIds) {
+        generation++;
+        for (int customerId : customerIds) {
+            entries.remove(customerId);
+        }
+    }
+
+    /**
+     * Evicts every customer, e.g. after an import wrote an unknown set of rows.
+     */
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * Stores a copy of a customer with a fresh expiry.
+     *
+     * @param customer the customer
+     */
+    private void store(T002Dto customer) {
+        entries.put(customer.getCustomerID(),
+                new Entry(copy(customer), System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * Copies a customer, so cached entries cannot be changed by callers.
+     *
+     * @param customer the customer
+     * @return the copy
+     */
+    private static T002Dto copy(T002Dto customer) {
+        T002Dto copy = new T002Dto();
+        copy.setCustomerID(customer.getCustomerID());
+        copy.setCustomerName(customer.getCustomerName());
+        copy.setSex(customer.getSex());
+        copy.setBirthday(customer.getBirthday());
+        copy.setEmail(customer.getEmail());
+        copy.setAddress(customer.getAddress());
+        return copy;
+    }
+}
@@ -0,0 +1,103 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import utils.AppConfig;
+
+/**
+ * Hands out new customer IDs from blocks of {@code SEQ_CUSTOMER_ID}.
+ * <p>
+ * A block of {@code customerId.allocationBlock} values is reserved with one
+ * call to {@code sys.sp_sequence_get_range}; IDs are then handed out from
+ * memory until the block is used up. Insert statements bind the ID
+ * explicitly instead of evaluating {@code NEXT VALUE FOR} per row, so callers
+ * know each new ID without reading it back.
+ * </p>
+ * <p>
+ * Like {@code NEXT VALUE FOR}, a reserved value is consumed even if the
+ * insert using it rolls back. Values left in the current block when the
+ * application stops are never used, so IDs can have gaps of up to one block
+ * per restart.
+ * </p>
+ */
+public class CustomerIdAllocator {
+
+    /** Singleton instance */
+    private static final CustomerIdAllocator instance = new CustomerIdAllocator();
+
+    /**
+     * Reserves a range and returns its first value and the sequence increment.
+     * {@code NOCOUNT} keeps the procedure's row count from hiding the result set.
+     */
+    private static final String RESERVE_RANGE_SQL = "SET NOCOUNT ON; "
+            + "DECLARE @first SQL_VARIANT, @increment SQL_VARIANT; "
+            + "EXEC sys.sp_sequence_get_range @sequence_name = N'SEQ_CUSTOMER_ID', @range_size = ?, "
+            + "@range_first_value = @first OUTPUT, @sequence_increment = @increment OUTPUT; "
+            + "SELECT CAST(@first AS INT), CAST(@increment AS INT)";
+
+    /** Number of sequence values reserved per round trip */
+    private final int blockSize = Math.max(1, AppConfig.getInstance().getInt("customerId.allocationBlock", 1000));
+
+    /** Next ID to hand out */
+    private int nextId;
+
+    /** IDs left in the current block */
+    private int remaining;
+
+    /** Increment of the sequence, read with every block */
+    private int increment = 1;
+
+    /** Private constructor to prevent external instantiation */
+    private CustomerIdAllocator() {}
+
+    /**
+     * Returns the singleton instance of {@code CustomerIdAllocator}.
+     *
+     * @return singleton instance
+     */
+    public static CustomerIdAllocator getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns a new customer ID, reserving the next block on the given
+     * connection when the current one is used up. The reservation does not
+     * take part in the caller's transaction.
+     *
+     * @param conn connection used if a block has to be reserved
+     * @return an unused customer ID
+     * @throws SQLException if the block cannot be reserved
+     */
+    public synchronized int nextId(Connection conn) throws SQLException {
+        if (remaining == 0) {
+            reserveBlock(conn);
+        }
+        int customerId = nextId;
+        nextId += increment;
+        remaining--;
+        return customerId;
+    }
+
+    /**
+     * Reserves {@link #blockSize} values of the sequence.
+     *
+     * @param conn connection to call the procedure on
+     * @throws SQLException if the procedure fails
+     */
+    private void reserveBlock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(RESERVE_RANGE_SQL)) {
+            ps.setInt(1, blockSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("sp_sequence_get_range returned no range");
+                }
+                nextId = rs.getInt(1);
+                increment = rs.getInt(2);
+                remaining = blockSize;
+            }
+        }
+    }
+}
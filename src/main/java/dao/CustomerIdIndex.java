@@ -0,0 +1,328 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import common.TableConstants;
+import utils.AppConfig;
+import utils.DBUtils;
+import utils.IntBitmap;
+
+/**
+ * In-memory index of active customer IDs ({@code DELETE_YMD IS NULL}).
+ * <p>
+ * Lets the import validation check whether a customer exists without a
+ * database round trip per CSV line. The IDs are kept in a compressed
+ * {@link IntBitmap}, loaded on first use and then maintained by the write
+ * paths:
+ * </p>
+ * <ul>
+ *   <li>{@link T002Dao#deleteCustomer} removes deleted IDs.</li>
+ *   <li>{@link T003Dao} adds inserted IDs and IDs revived by an update.</li>
+ *   <li>{@link T004Dao} adds the IDs an import inserted once they are
+ *       committed; they come from {@link CustomerIdAllocator}, so no read
+ *       back is needed.</li>
+ * </ul>
+ * <p>
+ * Changes made outside this application are picked up by a periodic
+ * reconcile, which re-reads only the rows whose {@code ROW_VER} is at or
+ * above the watermark. The watermark is {@code MIN_ACTIVE_ROWVERSION()}
+ * taken before each read: every row below it was committed before the
+ * read began, and every row written by a transaction still open at that
+ * point gets a version at or above it, so a row committed late is still
+ * picked up by the next reconcile. A timestamp such as {@code UPDATE_YMD}
+ * cannot do this, since it is stamped when the statement runs rather than
+ * when the transaction commits. The interval is
+ * {@code customerIdIndex.reconcileMinutes} in {@code appConfig.properties}.
+ * </p>
+ * <p>
+ * A reconcile reads a snapshot that may predate an {@link #add} or
+ * {@link #removeAll} made while it runs. IDs written that way are
+ * recorded and left alone when the reconcile applies its rows, so a stale
+ * snapshot cannot bring back a customer that was just deleted.
+ * </p>
+ */
+public class CustomerIdIndex {
+
+    /** Singleton eager instance */
+    private static final CustomerIdIndex instance = new CustomerIdIndex();
+
+    /** Guards {@link #ids} */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Serializes loads and reconciles so only one request queries the table */
+    private final Object refreshMonitor = new Object();
+
+    /** Minimum time between two reconciles */
+    private final long reconcileIntervalMillis =
+            AppConfig.getInstance().getLong("customerIdIndex.reconcileMinutes", 5) * 60_000L;
+
+    /** Active IDs, or null until first loaded */
+    private IntBitmap ids;
+
+    /** Row version from which changes have not been applied yet */
+    private long watermark;
+
+    /** IDs written by add/removeAll while a reconcile runs, else null; guarded by {@link #lock} */
+    private IntBitmap touched;
+
+    /** Wall-clock time after which the next lookup reconciles first */
+    private volatile long nextReconcileAt;
+
+    /** Private constructor to prevent external instantiation */
+    private CustomerIdIndex() {}
+
+    /**
+     * Returns the singleton instance of {@code CustomerIdIndex}.
+     *
+     * @return the singleton instance
+     */
+    public static CustomerIdIndex getInstance() {
+        return instance;
+    }
+
+    /**
+     * Checks whether a customer exists and is not marked as deleted.
+     * Loads or reconciles the index first when needed.
+     *
+     * @param customerId the customer ID to check
+     * @return {@code true} if the customer is active
+     * @throws SQLException if loading or reconciling the index fails
+     */
+    public boolean contains(int customerId) throws SQLException {
+        refreshIfDue();
+        lock.readLock().lock();
+        try {
+            return ids.contains(customerId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a customer ID as active. Ignored until the index is loaded,
+     * since the load will read the committed row anyway.
+     *
+     * @param customerId the inserted or revived customer ID
+     */
+    public void add(int customerId) {
+        lock.writeLock().lock();
+        try {
+            if (ids != null) {
+                ids.add(customerId);
+                markTouched(customerId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records customer IDs as active under one lock acquisition.
+     *
+     * @param customerIds the inserted customer IDs
+     */
+    public void addAll(List<Integer> customerIds) {
+        if (customerIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (ids != null) {
+                for (Integer customerId : customerIds) {
+                    ids.add(customerId);
+                    markTouched(customerId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records customer IDs as deleted.
+     *
+     * @param customerIds the deleted customer IDs
+     */
+    public void removeAll(int[] customerIds) {
+        lock.writeLock().lock();
+        try {
+            if (ids != null) {
+                for (int customerId : customerIds) {
+                    ids.remove(customerId);
+                    markTouched(customerId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records an ID written while a reconcile runs. Called under the write lock.
+     *
+     * @param customerId the written customer ID
+     */
+    private void markTouched(int customerId) {
+        if (touched != null) {
+            touched.add(customerId);
+        }
+    }
+
+    /**
+     * Returns the number of active IDs currently indexed.
+     *
+     * @return the ID count, or 0 if the index has not been loaded yet
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return ids == null ? 0 : ids.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the index on first use and reconciles it once the interval has
+     * elapsed.
+     *
+     * @throws SQLException if a query fails
+     */
+    private void refreshIfDue() throws SQLException {
+        if (System.currentTimeMillis() < nextReconcileAt) {
+            return;
+        }
+        synchronized (refreshMonitor) {
+            if (System.currentTimeMillis() < nextReconcileAt) {
+                return; // another request refreshed while this one waited
+            }
+            if (ids == null) {
+                load();
+            } else {
+                reconcile();
+            }
+            nextReconcileAt = System.currentTimeMillis() + reconcileIntervalMillis;
+        }
+    }
+
+    /**
+     * Reads all active IDs into a new bitmap and publishes it.
+     * <p>
+     * Rows committed while the scan runs, and IDs written by this application
+     * before the index was published, are caught by the reconcile that
+     * follows it, which starts from the row version taken before the scan.
+     * </p>
+     *
+     * @throws SQLException if the query fails
+     */
+    private void load() throws SQLException {
+        String sql = "SELECT " + TableConstants.CUST_CUSTOMER_ID
+                + " FROM " + TableConstants.TABLE_MSTCUSTOMER
+                + " WHERE " + TableConstants.CUST_DELETE_YMD + " IS NULL";
+
+        IntBitmap loaded = new IntBitmap();
+        long loadedAt;
+        try (Connection conn = DBUtils.getInstance().getReadConnection()) {
+            loadedAt = minActiveRowVersion(conn);
+            try (PreparedStatement ps = conn.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    loaded.add(rs.getInt(1));
+                }
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            ids = loaded;
+            watermark = loadedAt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        reconcile();
+    }
+
+    /**
+     * Applies the rows inserted, updated or deleted since the watermark,
+     * except IDs written by {@link #add} or {@link #removeAll} meanwhile.
+     * Changed rows are found through {@code ROW_VER}
+     * (see {@code sql/050_customer_row_version_index.sql}).
+     *
+     * @throws SQLException if the query fails
+     */
+    private void reconcile() throws SQLException {
+        String sql = "SELECT " + TableConstants.CUST_CUSTOMER_ID + ", "
+                + "CASE WHEN " + TableConstants.CUST_DELETE_YMD + " IS NULL THEN 1 ELSE 0 END"
+                + " FROM " + TableConstants.TABLE_MSTCUSTOMER
+                + " WHERE " + TableConstants.CUST_ROW_VER + " >= CAST(? AS BINARY(8))";
+
+        lock.writeLock().lock();
+        try {
+            touched = new IntBitmap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<int[]> changes = new ArrayList<>();
+        long reconciledAt;
+        try {
+            try (Connection conn = DBUtils.getInstance().getReadConnection()) {
+                reconciledAt = minActiveRowVersion(conn);
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setLong(1, watermark);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            changes.add(new int[] { rs.getInt(1), rs.getInt(2) });
+                        }
+                    }
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (int[] change : changes) {
+                    if (touched.contains(change[0])) {
+                        continue; // written meanwhile; the snapshot may be older
+                    }
+                    if (change[1] == 1) {
+                        ids.add(change[0]);
+                    } else {
+                        ids.remove(change[0]);
+                    }
+                }
+                watermark = reconciledAt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                touched = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Reads the lowest row version that may still be written by an open
+     * transaction. Every row with a lower version is committed.
+     *
+     * @param conn open connection, used before it reads any row
+     * @return the row version as a number
+     * @throws SQLException if the query fails
+     */
+    private long minActiveRowVersion(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT CAST(MIN_ACTIVE_ROWVERSION() AS BIGINT)");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
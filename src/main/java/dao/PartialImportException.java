@@ -0,0 +1,64 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Thrown by {@link T004Dao#importCustomerDataParallel} when some partitions
+ * were committed before the commit of another partition failed.
+ * <p>
+ * Committed rows cannot be rolled back any more, so the exception carries the
+ * compensating report instead: the row numbers that were saved and the ones
+ * that were not. The failed commit is the cause.
+ * </p>
+ */
+public class PartialImportException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Row numbers inserted by committed partitions */
+    private final List<Integer> insertedRows;
+
+    /** CUSTOMER_ID of each inserted row, aligned with {@link #insertedRows} */
+    private final List<Integer> insertedIds;
+
+    /** Row numbers updated by committed partitions */
+    private final List<Integer> updatedRows;
+
+    /** Row numbers routed to partitions that were rolled back */
+    private final List<Integer> notSavedRows;
+
+    /**
+     * Creates the report of a partially committed import.
+     *
+     * @param cause        the failed commit
+     * @param insertedRows inserted row numbers, sorted
+     * @param insertedIds  IDs of the inserted rows, aligned with {@code insertedRows}
+     * @param updatedRows  updated row numbers, sorted
+     * @param notSavedRows row numbers that were not saved, sorted
+     */
+    public PartialImportException(SQLException cause, List<Integer> insertedRows, List<Integer> insertedIds,
+            List<Integer> updatedRows, List<Integer> notSavedRows) {
+        super(cause.getMessage(), cause.getSQLState(), cause.getErrorCode(), cause);
+        this.insertedRows = insertedRows;
+        this.insertedIds = insertedIds;
+        this.updatedRows = updatedRows;
+        this.notSavedRows = notSavedRows;
+    }
+
+    public List<Integer> getInsertedRows() {
+        return insertedRows;
+    }
+
+    public List<Integer> getInsertedIds() {
+        return insertedIds;
+    }
+
+    public List<Integer> getUpdatedRows() {
+        return updatedRows;
+    }
+
+    public List<Integer> getNotSavedRows() {
+        return notSavedRows;
+    }
+}
@@ -4,13 +4,16 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+import common.Constants;
 import common.TableConstants;
+import dto.T002DeltaDto;
 import dto.T002Dto;
 import dto.T002SCO;
 import utils.DBUtils;
@@ -28,6 +31,13 @@ public class T002Dao {
     /** Singleton instance */
     private static final T002Dao instance = new T002Dao();
 
+    /**
+     * IDs per soft-delete statement. Every chunk binds exactly this many
+     * parameters, far below SQL Server's limit of 2100, so all deletes share
+     * one cached plan.
+     */
+    private static final int DELETE_CHUNK = 500;
+
     /** Private constructor to prevent external instantiation */
     private T002Dao() {}
 
@@ -42,6 +52,11 @@ public class T002Dao {
 
     /**
      * Searches customers with optional filters and pagination.
+     * <p>
+     * The count and the page are read on one read connection inside a single
+     * transaction, so under SNAPSHOT isolation both see the same data and
+     * neither waits on a concurrent import.
+     * </p>
      *
      * @param sco    search criteria (name, sex, birthday range in yyyy/MM/dd)
      * @param offset start index for pagination (zero-based)
@@ -58,11 +73,23 @@ public class T002Dao {
         List<Object> params = new ArrayList<>();
         StringBuilder whereClause = buildWhereClause(sco, params);
 
-        // Count total records for pagination
-        int totalCount = countCustomers(whereClause, params);
+        int totalCount;
+        List<T002Dto> customers;
+        long generation = CustomerCache.getInstance().generation();
+        try (Connection conn = DBUtils.getInstance().getReadConnection()) {
+            conn.setAutoCommit(false); // one snapshot for count and page
+
+            // Count total records for pagination
+            totalCount = countCustomers(conn, whereClause, params);
+
+            // Fetch paginated customers
+            customers = fetchCustomers(conn, whereClause, params, offset, limit);
+
+            conn.commit();
+        }
 
-        // Fetch paginated customers
-        List<T002Dto> customers = fetchCustomers(whereClause, params, offset, limit);
+        // The page rows are what the edit screen opens next
+        cachePage(customers, generation);
 
         // Prepare result map
         Map<String, Object> result = new HashMap<>();
@@ -71,6 +98,34 @@ public class T002Dao {
         return result;
     }
 
+    /**
+     * Puts the rows of a search page into {@link CustomerCache}. The page shows
+     * {@code SEX} as 'Male'/'Female' while the edit screen expects the stored
+     * code, so the label is mapped back; rows without a label are not cached.
+     *
+     * @param customers  rows of the page
+     * @param generation {@link CustomerCache#generation()} taken before the query
+     */
+    private void cachePage(List<T002Dto> customers, long generation) {
+        List<T002Dto> rows = new ArrayList<>(customers.size());
+        for (T002Dto customer : customers) {
+            String sex = "Male".equals(customer.getSex()) ? "0"
+                    : "Female".equals(customer.getSex()) ? "1" : null;
+            if (sex == null) {
+                continue;
+            }
+            T002Dto row = new T002Dto();
+            row.setCustomerID(customer.getCustomerID());
+            row.setCustomerName(customer.getCustomerName());
+            row.setSex(sex);
+            row.setBirthday(customer.getBirthday());
+            row.setEmail(customer.getEmail());
+            row.setAddress(customer.getAddress());
+            rows.add(row);
+        }
+        CustomerCache.getInstance().putAll(rows, generation);
+    }
+
     /**
      * Builds dynamic WHERE clause and collects SQL parameters.
      *
@@ -110,21 +165,21 @@ public class T002Dao {
      * using the provided conditions and parameters.
      * </p>
      *
+     * @param conn        The read connection to use.
      * @param whereClause The SQL WHERE clause (including leading "WHERE" if applicable).
      * @param params      The list of parameter values to bind in the prepared statement.
      * @return The total number of matching customers.
      * @throws SQLException if a database access error occurs.
      */
-    private int countCustomers(StringBuilder whereClause, List<Object> params) throws SQLException {
+    private int countCustomers(Connection conn, StringBuilder whereClause, List<Object> params) throws SQLException {
         // Build COUNT query dynamically
         StringBuilder countSql = new StringBuilder()
                 .append("SELECT COUNT(*) FROM ")
                 .append(TableConstants.TABLE_MSTCUSTOMER)
                 .append(whereClause);
 
-        // Use try-with-resources to ensure connection, statement, and result set are closed
-        try (Connection conn = DBUtils.getInstance().getConnection();
-             PreparedStatement psCount = conn.prepareStatement(countSql.toString())) {
+        // Use try-with-resources to ensure statement and result set are closed
+        try (PreparedStatement psCount = conn.prepareStatement(countSql.toString())) {
 
             // Bind query parameters
             setParameters(psCount, params);
@@ -154,6 +209,7 @@ public class T002Dao {
      * Supports mapping gender values ('0' → Male, '1' → Female) into readable text.
      * </p>
      *
+     * @param conn        The read connection to use.
      * @param whereClause The SQL WHERE clause (including leading "WHERE" if applicable).
      * @param params      The list of parameter values to bind in the prepared statement.
      * @param offset      The starting row for pagination.
@@ -161,7 +217,7 @@ public class T002Dao {
      * @return A list of {@link T002Dto} customers matching the search conditions.
      * @throws SQLException if a database access error occurs.
      */
-    private List<T002Dto> fetchCustomers(StringBuilder whereClause, List<Object> params,
+    private List<T002Dto> fetchCustomers(Connection conn, StringBuilder whereClause, List<Object> params,
                                          int offset, int limit) throws SQLException {
         // Build SELECT query with filtering, ordering, and pagination
         StringBuilder sql = new StringBuilder()
@@ -186,9 +242,8 @@ public class T002Dao {
         queryParams.add(limit);
 
         List<T002Dto> customers = new ArrayList<>();
-        // Try-with-resources ensures connection, statement, and result set are closed
-        try (Connection conn = DBUtils.getInstance().getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+        // Try-with-resources ensures statement and result set are closed
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
 
             // Bind all parameters, including filters and pagination
             setParameters(ps, queryParams);
@@ -202,38 +257,325 @@ public class T002Dao {
         }
         return customers;
     }
+
+    /**
+     * Fetches all customers matching the search conditions for CSV export,
+     * selecting only the requested columns.
+     * <p>
+     * The {@code columns} list holds column header values (e.g. {@code customerName},
+     * {@code email}) in the order chosen on the T005 screen. Only those columns are
+     * projected by the SQL query and mapped into the DTO, so a narrow export reads
+     * proportionally fewer bytes from the database. Unknown values are ignored.
+     * </p>
+     *
+     * @param sco     search criteria
+     * @param columns column header values to select, in display order
+     * @return list of customers with only the selected fields populated
+     * @throws SQLException if query execution fails
+     */
+    public List<T002Dto> exportCustomers(T002SCO sco, List<String> columns) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder whereClause = buildWhereClause(sco, params);
+
+        // Build SELECT list from the requested columns only
+        List<String> selectList = new ArrayList<>();
+        for (String column : columns) {
+            String expression = toSelectExpression(column);
+            if (expression != null) {
+                selectList.add(expression);
+            }
+        }
+        // CUSTOMER_ID is always needed for ordering and is cheap to read
+        if (!columns.contains(Constants.HEADER_CUSTOMER_ID)) {
+            selectList.add(0, TableConstants.CUST_CUSTOMER_ID);
+        }
+
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT ").append(String.join(", ", selectList))
+                .append(" FROM ").append(TableConstants.TABLE_MSTCUSTOMER)
+                .append(whereClause)
+                .append(" ORDER BY ").append(TableConstants.CUST_CUSTOMER_ID);
+
+        List<T002Dto> customers = new ArrayList<>();
+        try (Connection conn = DBUtils.getInstance().getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            setParameters(ps, params);
+
+            // Map only the selected columns; the rest stay null
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    customers.add(mapSelectedColumns(rs, columns));
+                }
+            }
+        }
+        return customers;
+    }
+
+    /**
+     * Fetches every customer whose row changed at or after the given point in time,
+     * including tombstones for soft-deleted customers.
+     * <p>
+     * A row is considered changed when any of {@code UPDATE_YMD}, {@code INSERT_YMD}
+     * or {@code DELETE_YMD} is at or after {@code since}. The candidate IDs are
+     * collected with one {@code UNION} branch per timestamp column so that each
+     * branch can seek its own index (see {@code sql/027_delta_export_indexes.sql})
+     * instead of scanning the table with an {@code OR} predicate.
+     * </p>
+     * <p>
+     * The database time is read on the same connection before the query runs and
+     * returned as the new watermark, so the next call can pass it as {@code since}
+     * without missing rows that change while the export is being written.
+     * </p>
+     * <p>
+     * This query deliberately uses a locking connection rather than
+     * {@link DBUtils#getReadConnection()}. An import stamps {@code UPDATE_YMD}
+     * and {@code INSERT_YMD} when each statement runs but commits later, so a
+     * snapshot would skip those rows while the watermark already moves past
+     * their timestamps. A locking read waits for the import to commit and
+     * exports them.
+     * </p>
+     *
+     * @param since lower bound (inclusive) of the change timestamps
+     * @return map containing:
+     *         <ul>
+     *           <li>"customers" - List of {@link T002DeltaDto}</li>
+     *           <li>"watermark" - {@link Timestamp} to use for the next call</li>
+     *         </ul>
+     * @throws SQLException if query execution fails
+     */
+    public Map<String, Object> findChangedCustomers(Timestamp since) throws SQLException {
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT ")
+                .append(TableConstants.CUST_CUSTOMER_ID).append(", ")
+                .append(TableConstants.CUST_CUSTOMER_NAME).append(", ")
+                // Map numeric gender values into readable strings
+                .append("CASE WHEN ").append(TableConstants.CUST_SEX).append(" = '0' THEN 'Male' ")
+                .append("WHEN ").append(TableConstants.CUST_SEX).append(" = '1' THEN 'Female' END AS ")
+                .append(TableConstants.CUST_SEX).append(", ")
+                .append(TableConstants.CUST_BIRTHDAY).append(", ")
+                .append(TableConstants.CUST_EMAIL).append(", ")
+                .append(TableConstants.CUST_ADDRESS).append(", ")
+                .append(TableConstants.CUST_DELETE_YMD)
+                .append(" FROM ").append(TableConstants.TABLE_MSTCUSTOMER)
+                .append(" WHERE ").append(TableConstants.CUST_CUSTOMER_ID).append(" IN (")
+                .append(buildChangedIdBranch(TableConstants.CUST_UPDATE_YMD)).append(" UNION ")
+                .append(buildChangedIdBranch(TableConstants.CUST_INSERT_YMD)).append(" UNION ")
+                .append(buildChangedIdBranch(TableConstants.CUST_DELETE_YMD)).append(")")
+                .append(" ORDER BY ").append(TableConstants.CUST_CUSTOMER_ID);
+
+        List<T002Dto> customers = new ArrayList<>();
+        Timestamp watermark;
+        try (Connection conn = DBUtils.getInstance().getConnection()) {
+
+            // Capture the new watermark before reading any changed row
+            try (PreparedStatement psNow = conn.prepareStatement("SELECT GETDATE()");
+                 ResultSet rs = psNow.executeQuery()) {
+                rs.next();
+                watermark = rs.getTimestamp(1);
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                // One parameter per UNION branch
+                ps.setTimestamp(1, since);
+                ps.setTimestamp(2, since);
+                ps.setTimestamp(3, since);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        T002DeltaDto dto = new T002DeltaDto();
+                        dto.setCustomerID(rs.getInt(TableConstants.CUST_CUSTOMER_ID));
+                        dto.setCustomerName(rs.getString(TableConstants.CUST_CUSTOMER_NAME));
+                        dto.setSex(rs.getString(TableConstants.CUST_SEX));
+                        dto.setBirthday(rs.getString(TableConstants.CUST_BIRTHDAY));
+                        dto.setEmail(rs.getString(TableConstants.CUST_EMAIL));
+                        dto.setAddress(rs.getString(TableConstants.CUST_ADDRESS));
+                        dto.setDeleted(rs.getTimestamp(TableConstants.CUST_DELETE_YMD) != null);
+                        customers.add(dto);
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("customers", customers);
+        result.put("watermark", watermark);
+        return result;
+    }
+
+    /**
+     * Builds one branch of the changed-ID subquery for a timestamp column.
+     *
+     * @param timestampColumn the audit column to compare (e.g. {@code UPDATE_YMD})
+     * @return SQL selecting customer IDs whose column is at or after the bound
+     */
+    private String buildChangedIdBranch(String timestampColumn) {
+        return "SELECT " + TableConstants.CUST_CUSTOMER_ID
+                + " FROM " + TableConstants.TABLE_MSTCUSTOMER
+                + " WHERE " + timestampColumn + " >= ?";
+    }
+
+    /**
+     * Converts a column header value into its SQL select expression.
+     *
+     * @param column column header value (e.g. {@code sex})
+     * @return SQL expression, or {@code null} if the column is not exportable
+     */
+    private String toSelectExpression(String column) {
+        switch (column) {
+            case Constants.HEADER_CUSTOMER_ID:
+                return TableConstants.CUST_CUSTOMER_ID;
+            case Constants.HEADER_CUSTOMER_NAME:
+                return TableConstants.CUST_CUSTOMER_NAME;
+            case Constants.HEADER_SEX:
+                // Map numeric gender values into readable strings
+                return "CASE WHEN " + TableConstants.CUST_SEX + " = '0' THEN 'Male' "
+                        + "WHEN " + TableConstants.CUST_SEX + " = '1' THEN 'Female' END AS "
+                        + TableConstants.CUST_SEX;
+            case Constants.HEADER_BIRTHDAY:
+                return TableConstants.CUST_BIRTHDAY;
+            case Constants.HEADER_EMAIL:
+                return TableConstants.CUST_EMAIL;
+            case Constants.HEADER_ADDRESS:
+                return TableConstants.CUST_ADDRESS;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Maps only the selected columns of a result set row to a {@link T002Dto}.
+     *
+     * @param rs      result set pointing to the current row
+     * @param columns column header values present in the projection
+     * @return DTO with the selected fields populated
+     * @throws SQLException if result set access fails
+     */
+    private T002Dto mapSelectedColumns(ResultSet rs, List<String> columns) throws SQLException {
+        T002Dto dto = new T002Dto();
+        dto.setCustomerID(rs.getInt(TableConstants.CUST_CUSTOMER_ID));
+        for (String column : columns) {
+            switch (column) {
+                case Constants.HEADER_CUSTOMER_NAME:
+                    dto.setCustomerName(rs.getString(TableConstants.CUST_CUSTOMER_NAME));
+                    break;
+                case Constants.HEADER_SEX:
+                    dto.setSex(rs.getString(TableConstants.CUST_SEX));
+                    break;
+                case Constants.HEADER_BIRTHDAY:
+                    dto.setBirthday(rs.getString(TableConstants.CUST_BIRTHDAY));
+                    break;
+                case Constants.HEADER_EMAIL:
+                    dto.setEmail(rs.getString(TableConstants.CUST_EMAIL));
+                    break;
+                case Constants.HEADER_ADDRESS:
+                    dto.setAddress(rs.getString(TableConstants.CUST_ADDRESS));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return dto;
+    }
+
     /**
      * Soft deletes customers by marking them with the current date in {@code DELETE_YMD}.
      * <p>
      * Instead of removing records physically, this method updates the 
      * {@code DELETE_YMD} column to the current date using {@code GETDATE()}.
+     * The IDs are sent in chunks of {@value #DELETE_CHUNK} as one JDBC batch
+     * inside a single transaction, so any number of IDs can be deleted at
+     * once. The deleted IDs are then removed from {@link CustomerIdIndex}
+     * and {@link CustomerCache}.
      * </p>
      *
-     * @param customerIds list of customer IDs to mark as deleted
+     * @param customerIds customer IDs to mark as deleted
      * @throws SQLException if the update operation fails
      */
-    public void deleteCustomer(List<Integer> customerIds) throws SQLException {
-        if (customerIds == null || customerIds.isEmpty()) return;
+    public void deleteCustomer(int[] customerIds) throws SQLException {
+        if (customerIds == null || customerIds.length == 0) return;
 
-        // Build dynamic SQL with placeholders (?) for each customer ID
+        try (Connection conn = DBUtils.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(buildDeleteChunkSql())) {
+                for (int from = 0; from < customerIds.length; from += DELETE_CHUNK) {
+                    int to = Math.min(from + DELETE_CHUNK, customerIds.length);
+                    for (int i = 0; i < DELETE_CHUNK; i++) {
+                        // Pad the last chunk by repeating its last ID; duplicates in IN are harmless
+                        ps.setInt(i + 1, customerIds[Math.min(from + i, to - 1)]);
+                    }
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        // Keep the import existence index and the edit cache in step with the soft delete
+        CustomerIdIndex.getInstance().removeAll(customerIds);
+        CustomerCache.getInstance().invalidateAll(customerIds);
+    }
+
+    /**
+     * Soft deletes every active customer matching the search conditions with
+     * one set-based {@code UPDATE}, using the same filters as
+     * {@link #searchCustomers}. No IDs travel through the browser; the
+     * deleted IDs are read back with {@code OUTPUT} to update
+     * {@link CustomerIdIndex} and {@link CustomerCache}.
+     *
+     * @param sco search criteria of the current search
+     * @return the number of customers deleted
+     * @throws SQLException if the update operation fails
+     */
+    public int deleteMatchingCustomers(T002SCO sco) throws SQLException {
+        List<Object> params = new ArrayList<>();
         StringBuilder sql = new StringBuilder()
                 .append("UPDATE ").append(TableConstants.TABLE_MSTCUSTOMER)
                 .append(" SET ").append(TableConstants.CUST_DELETE_YMD).append(" = GETDATE()")
-                .append(" WHERE ").append(TableConstants.CUST_CUSTOMER_ID).append(" IN (")
-                .append(customerIds.stream().map(id -> "?").collect(Collectors.joining(",")))
-                .append(")");
+                .append(" OUTPUT INSERTED.").append(TableConstants.CUST_CUSTOMER_ID)
+                .append(buildWhereClause(sco, params));
 
+        int[] deletedIds = new int[1024];
+        int count = 0;
         try (Connection conn = DBUtils.getInstance().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql.toString())) {
-            
-            // Assign values to each placeholder (customer ID)
-            for (int i = 0; i < customerIds.size(); i++) {
-                ps.setInt(i + 1, customerIds.get(i));
+            setParameters(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (count == deletedIds.length) {
+                        deletedIds = Arrays.copyOf(deletedIds, count * 2);
+                    }
+                    deletedIds[count++] = rs.getInt(1);
+                }
             }
+        }
 
-            // Execute the update query
-            ps.executeUpdate();
+        // Keep the import existence index and the edit cache in step with the soft delete
+        int[] deleted = Arrays.copyOf(deletedIds, count);
+        CustomerIdIndex.getInstance().removeAll(deleted);
+        CustomerCache.getInstance().invalidateAll(deleted);
+        return count;
+    }
+
+    /**
+     * Build SQL soft deleting one chunk of exactly {@value #DELETE_CHUNK} IDs.
+     *
+     * @return SQL string
+     */
+    private String buildDeleteChunkSql() {
+        StringBuilder sql = new StringBuilder()
+                .append("UPDATE ").append(TableConstants.TABLE_MSTCUSTOMER)
+                .append(" SET ").append(TableConstants.CUST_DELETE_YMD).append(" = GETDATE()")
+                .append(" WHERE ").append(TableConstants.CUST_CUSTOMER_ID).append(" IN (?");
+        for (int i = 1; i < DELETE_CHUNK; i++) {
+            sql.append(",?");
         }
+        return sql.append(")").toString();
     }
 
     /**
@@ -8,6 +8,7 @@ import java.sql.SQLException;
 import common.TableConstants;
 import dto.T002Dto;
 import form.T003Form;
+import utils.ContentHash;
 import utils.DBUtils;
 
 /**
@@ -41,12 +42,22 @@ public class T003Dao {
     /**
      * Retrieves a customer by ID from the database, only if the customer
      * has not been marked as deleted (i.e., {@code DELETE_YMD IS NULL}).
+     * Uses a read connection so the edit screen does not wait on a running import.
+     * Customers are served from {@link CustomerCache} when cached, and cached
+     * after a load otherwise.
      *
      * @param customerId the unique ID of the customer to retrieve
      * @return a {@link T002Dto} populated with customer data if found,
      *         otherwise {@code null}
      */
     public T002Dto getCustomerById(Integer customerId) {
+        CustomerCache cache = CustomerCache.getInstance();
+        T002Dto cached = cache.get(customerId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.generation();
+
         StringBuilder sql = new StringBuilder()
             .append("SELECT ")
             .append(TableConstants.CUST_CUSTOMER_ID).append(", ")
@@ -59,7 +70,7 @@ public class T003Dao {
             .append(" WHERE ").append(TableConstants.CUST_CUSTOMER_ID).append(" = ?")
             .append(" AND ").append(TableConstants.CUST_DELETE_YMD).append(" IS NULL");
 
-        try (Connection conn = DBUtils.getInstance().getConnection();
+        try (Connection conn = DBUtils.getInstance().getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
             // Bind customerId parameter
@@ -68,8 +79,10 @@ public class T003Dao {
             // Execute query
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    // Map ResultSet row into DTO object
-                    return mapRow(rs);
+                    // Map ResultSet row into DTO object and cache it
+                    T002Dto customer = mapRow(rs);
+                    cache.put(customer, generation);
+                    return customer;
                 }
             }
         } catch (SQLException e) {
@@ -84,8 +97,11 @@ public class T003Dao {
     /**
      * Inserts a new customer record into {@code MSTCUSTOMER}.
      * <p>
-     * The method generates a new customer ID using {@code SEQ_CUSTOMER_ID}
-     * and sets audit fields (insert/update timestamp and person code).
+     * The method takes a new customer ID from {@link CustomerIdAllocator},
+     * which reserves blocks of {@code SEQ_CUSTOMER_ID}, and sets audit fields
+     * (insert/update timestamp and person code). The ID is bound explicitly
+     * and added to {@link CustomerIdIndex}. {@code CONTENT_HASH} is stored so that imports
+     * can detect unchanged rows without reading them.
      * </p>
      *
      * @param editForm {@link T003Form} containing customer details
@@ -96,7 +112,6 @@ public class T003Dao {
         // Build INSERT statement with placeholders
         StringBuilder sql = new StringBuilder()
             .append("INSERT INTO ").append(TableConstants.TABLE_MSTCUSTOMER).append(" (")
-            .append(TableConstants.CUST_CUSTOMER_ID).append(", ")
             .append(TableConstants.CUST_CUSTOMER_NAME).append(", ")
             .append(TableConstants.CUST_SEX).append(", ")
             .append(TableConstants.CUST_BIRTHDAY).append(", ")
@@ -106,9 +121,11 @@ public class T003Dao {
             .append(TableConstants.CUST_INSERT_YMD).append(", ")
             .append(TableConstants.CUST_INSERT_PSN_CD).append(", ")
             .append(TableConstants.CUST_UPDATE_YMD).append(", ")
-            .append(TableConstants.CUST_UPDATE_PSN_CD).append(") ")
-            .append("VALUES (NEXT VALUE FOR SEQ_CUSTOMER_ID, ?, ?, ?, ?, ?, ")
-            .append("NULL, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, ?)");
+            .append(TableConstants.CUST_UPDATE_PSN_CD).append(", ")
+            .append(TableConstants.CUST_CONTENT_HASH).append(", ")
+            .append(TableConstants.CUST_CUSTOMER_ID).append(") ")
+            .append("VALUES (?, ?, ?, ?, ?, ")
+            .append("NULL, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, ?, ?, ?)");
 
         try (Connection conn = DBUtils.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
@@ -122,8 +139,16 @@ public class T003Dao {
             // Set parameter 7: UPDATE_PSN_CD
             stmt.setInt(7, psnCd);
 
-            // Execute insert
+            // Set parameter 8: CONTENT_HASH
+            stmt.setLong(8, contentHash(editForm));
+
+            // Set parameter 9: CUSTOMER_ID from the reserved block
+            int customerId = CustomerIdAllocator.getInstance().nextId(conn);
+            stmt.setInt(9, customerId);
+
+            // Execute insert and register the new ID
             stmt.executeUpdate();
+            CustomerIdIndex.getInstance().add(customerId);
         }
     }
 
@@ -133,7 +158,11 @@ public class T003Dao {
      * <p>
      * The method updates customer details (name, sex, birthday, email, address),
      * resets {@code DELETE_YMD} to {@code NULL} (marking the record as active),
-     * and updates audit fields {@code UPDATE_YMD} and {@code UPDATE_PSN_CD}.
+     * and updates audit fields {@code UPDATE_YMD} and {@code UPDATE_PSN_CD}
+     * along with {@code CONTENT_HASH}.
+     * Because the record becomes active, its ID is added to {@link CustomerIdIndex}.
+     * The stored values are read back with {@code OUTPUT} and written through
+     * to {@link CustomerCache}, so the next edit screen needs no query.
      * </p>
      *
      * @param editForm {@link T003Form} containing updated customer data
@@ -153,7 +182,15 @@ public class T003Dao {
             .append(TableConstants.CUST_DELETE_YMD).append(" = NULL, ")
             // Update audit fields
             .append(TableConstants.CUST_UPDATE_YMD).append(" = CURRENT_TIMESTAMP, ")
-            .append(TableConstants.CUST_UPDATE_PSN_CD).append(" = ? ")
+            .append(TableConstants.CUST_UPDATE_PSN_CD).append(" = ?, ")
+            .append(TableConstants.CUST_CONTENT_HASH).append(" = ? ")
+            // Return the stored values for the cache
+            .append("OUTPUT INSERTED.").append(TableConstants.CUST_CUSTOMER_ID)
+            .append(", INSERTED.").append(TableConstants.CUST_CUSTOMER_NAME)
+            .append(", INSERTED.").append(TableConstants.CUST_SEX)
+            .append(", INSERTED.").append(TableConstants.CUST_BIRTHDAY)
+            .append(", INSERTED.").append(TableConstants.CUST_EMAIL)
+            .append(", INSERTED.").append(TableConstants.CUST_ADDRESS).append(" ")
             // Restrict update by primary key
             .append("WHERE ").append(TableConstants.CUST_CUSTOMER_ID).append(" = ?");
 
@@ -166,11 +203,19 @@ public class T003Dao {
             // Set parameter 6: UPDATE_PSN_CD (who updated this record)
             stmt.setInt(6, psnCd);
 
-            // Set parameter 7: WHERE CUSTOMER_ID = ?
-            stmt.setInt(7, editForm.getCustomerId());
+            // Set parameter 7: CONTENT_HASH
+            stmt.setLong(7, contentHash(editForm));
+
+            // Set parameter 8: WHERE CUSTOMER_ID = ?
+            stmt.setInt(8, editForm.getCustomerId());
 
             // Execute the UPDATE statement
-            stmt.executeUpdate();
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    CustomerIdIndex.getInstance().add(editForm.getCustomerId());
+                    CustomerCache.getInstance().write(mapRow(rs));
+                }
+            }
         }
     }
 
@@ -193,6 +238,18 @@ public class T003Dao {
         return dto;
     }
 
+    /**
+     * Computes the content hash of the values written for a customer, in the
+     * same column order T004Dao uses.
+     *
+     * @param editForm customer data
+     * @return content hash of the business columns
+     */
+    private long contentHash(T003Form editForm) {
+        return ContentHash.of(editForm.getCustomerName(), editForm.getSex(), editForm.getBirthday(),
+                editForm.getEmail(), editForm.getAddress());
+    }
+
     /**
      * Sets common customer fields in a {@link PreparedStatement}.
      *
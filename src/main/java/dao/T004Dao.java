@@ -4,15 +4,34 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+
+import common.Constants;
 import common.TableConstants;
 import dto.T002Dto;
+import dto.T004Dto;
+import utils.BatchFlusher;
+import utils.ContentHash;
 import utils.DBUtils;
+import utils.IntLongHashMap;
 
 /**
  * DAO class for handling MSTCUSTOMER table operations.
- * Supports checking customer existence, batch insert, batch update, 
+ * Supports batch insert, batch update, 
  * and transactional import of customer data.
  */
 public class T004Dao {
@@ -21,6 +40,58 @@ public class T004Dao {
     /** Singleton instance of T001Dao */
     private static final T004Dao instance = new T004Dao();
 
+    /**
+     * Number of existing customers loaded per change-detection query.
+     * Every query binds exactly this many IDs so the statement shape, and its
+     * cached plan, never change; well below SQL Server's 2100 parameter limit.
+     */
+    private static final int CHANGE_CHECK_CHUNK = 500;
+
+    /** Estimated parameter payload of one hash backfill (BIGINT + INT) */
+    private static final long BACKFILL_PAYLOAD_BYTES = 12;
+
+    /** Estimated payload of the fixed-size parameters of an insert/update */
+    private static final long FIXED_PAYLOAD_BYTES = 4 + 4 + 4 + 8;
+
+    /** Session-scoped staging table used by {@link #mergeCustomerData} */
+    private static final String STAGING_TABLE = "#T004_STAGING";
+
+    /** Rows sent per round trip by the bulk copy into the staging table */
+    private static final int BULK_COPY_BATCH_SIZE = 10000;
+
+    /** Staging columns, in bulk copy ordinal order */
+    private static final String[] STAGING_COLUMNS = {
+        "LINE_NO", TableConstants.CUST_CUSTOMER_ID, "NEW_ROW",
+        TableConstants.CUST_CUSTOMER_NAME, TableConstants.CUST_SEX, TableConstants.CUST_BIRTHDAY,
+        TableConstants.CUST_EMAIL, TableConstants.CUST_ADDRESS, TableConstants.CUST_CONTENT_HASH
+    };
+
+    /** JDBC types of {@link #STAGING_COLUMNS} */
+    private static final int[] STAGING_TYPES = {
+        Types.INTEGER, Types.INTEGER, Types.BIT,
+        Types.NVARCHAR, Types.INTEGER, Types.NVARCHAR,
+        Types.NVARCHAR, Types.NVARCHAR, Types.BIGINT
+    };
+
+    /** Precision of {@link #STAGING_COLUMNS}; the string lengths match the staging DDL */
+    private static final int[] STAGING_PRECISIONS = {
+        10, 10, 1,
+        Constants.MAX_CUSTOMER_NAME_LENGTH, 10, 20,
+        4000, Constants.MAX_ADDRESS_LENGTH, 19
+    };
+
+    /** Width of the customer ID ranges dealt out to the partitions of a parallel import */
+    private static final int PARTITION_BLOCK = 1024;
+
+    /** Rows handed to a partition writer at a time */
+    private static final int DISPATCH_ROWS = 500;
+
+    /** Row lists a partition writer may have queued before the dispatch waits */
+    private static final int PARTITION_QUEUE_LISTS = 4;
+
+    /** Marks the end of the rows for a partition writer; compared by identity */
+    private static final List<T004Dto> END_OF_ROWS = Collections.unmodifiableList(new ArrayList<>());
+
     /** Private constructor to prevent external instantiation */
     private T004Dao() {}
 
@@ -34,102 +105,378 @@ public class T004Dao {
     }
     
     /**
-     * Checks whether a customer exists in the database and is not marked as deleted.
+     * Imports a stream of customers: inserts new customers or updates existing ones.
+     *
+     * <p>This method runs inside a transaction. If any insert/update fails, 
+     * all changes are rolled back. Customers without ID are treated as new inserts. 
+     * Existing customers are updated only if their data has changed.</p>
+     *
+     * <p>Change detection first compares a {@link ContentHash} of the row with
+     * the {@code CONTENT_HASH} stored for the customer, loaded once per import
+     * into a primitive map. Equal hashes skip the row and different hashes
+     * update it, both without a database read. Customers whose hash is not
+     * stored yet are collected into chunks of {@link #CHANGE_CHECK_CHUNK};
+     * the current values of a whole chunk are read with one query and compared
+     * in memory. Unchanged rows found this way get their hash backfilled, so
+     * the next import can skip them by hash alone.</p>
+     *
+     * <p>Rows are pulled from the iterator one at a time and the insert/update
+     * batches are sent by {@link BatchFlusher} in pieces whose size adapts to
+     * the measured latency, so neither this method nor the JDBC driver buffers
+     * the whole file.</p>
+     *
+     * @param customers iterator over the customer rows to be imported
+     * @param psnCd     personal code of the operator performing the action
+     * @return a result map containing:
+     *         <ul>
+     *           <li>"inserted" → list of row numbers that were inserted</li>
+     *           <li>"insertedIds" → CUSTOMER_ID given to each inserted row, in the same order</li>
+     *           <li>"updated" → list of row numbers that were updated</li>
+     *           <li>"dataVersion" → {@link #getDataVersion()} read inside the
+     *               transaction just before its commit</li>
+     *         </ul>
+     * @throws SQLException if any database error occurs (insertion, update, or rollback)
+     */
+    public Map<String, Object> importCustomerData(Iterator<T004Dto> customers, Integer psnCd) throws SQLException {
+        Map<String, Object> resultMap = new HashMap<>();
+
+        // Get DB connection
+        try (Connection conn = DBUtils.getInstance().getConnection()) {
+            conn.setAutoCommit(false); // start transaction manually
+
+            // Stored hashes, read inside the transaction
+            try (RowWriter writer = new RowWriter(conn, loadContentHashes(conn), psnCd)) {
+
+                // Iterate over customers and decide insert/update
+                while (customers.hasNext()) {
+                    writer.write(customers.next());
+                }
+
+                // Execute the remaining batches
+                writer.flush();
+
+                long dataVersion = readDataVersion(conn);
+                conn.commit(); // commit all if success
+
+                // New IDs were allocated up front, so the existence index can take them directly
+                CustomerIdIndex.getInstance().addAll(writer.insertedIds);
+
+                // Return result summary
+                resultMap.put("inserted", writer.insertedIndexes);
+                resultMap.put("insertedIds", writer.insertedIds);
+                // Rows awaiting a change check are reported after later rows with a known hash
+                Collections.sort(writer.updatedIndexes);
+                resultMap.put("updated", writer.updatedIndexes);
+                resultMap.put("dataVersion", dataVersion);
+                return resultMap;
+
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback(); // rollback all changes if any error (including read errors)
+                throw e;
+            } finally {
+                conn.setAutoCommit(true); // reset autocommit back to default
+            }
+        }
+    }
+
+    /**
+     * Imports a stream of customers committing every {@code chunkRows} rows.
+     *
+     * <p>Unlike {@link #importCustomerData}, locks and log space are released
+     * after each chunk, and a failure only rolls back the current chunk. With
+     * every commit the last committed row number is stored in
+     * {@code IMPORT_CHECKPOINT} under the SHA-256 of the file, in the same
+     * transaction as the chunk. Importing the same file again passes that row
+     * as {@code resumeAfterRow}, and rows up to it are skipped. The checkpoint
+     * is removed once the whole file is committed.</p>
      *
-     * <p>This method queries the {@code MSTCUSTOMER} table by {@code CUSTOMER_ID} 
-     * and ensures that the {@code DELETE_YMD} field is NULL 
-     * (i.e., the customer is still active and not logically deleted).</p>
+     * <p>Change detection and batching are the same as in
+     * {@link #importCustomerData}.</p>
      *
-     * @param customerId the unique ID of the customer to check
-     * @return {@code true} if the customer exists and is active, {@code false} otherwise
-     * @throws SQLException if any database access error occurs
+     * @param customers      iterator over the customer rows to be imported
+     * @param psnCd          personal code of the operator performing the action
+     * @param fileHash       SHA-256 of the uploaded file, hex encoded
+     * @param chunkRows      rows written per transaction
+     * @param resumeAfterRow last row committed by an earlier attempt, or 0
+     * @return a result map with the "inserted", "insertedIds" and "updated" lists of this attempt
+     *         and the "dataVersion" read before the last commit
+     * @throws SQLException if a chunk fails; earlier chunks stay committed
      */
-    public boolean checkCustomerExists(int customerId) throws SQLException {
-        // SQL query to check customer existence where DELETE_YMD is NULL
-        String sql = "SELECT COUNT(*) FROM " + TableConstants.TABLE_MSTCUSTOMER +
-                     " WHERE " + TableConstants.CUST_CUSTOMER_ID + " = ? " +
-                     "AND " + TableConstants.CUST_DELETE_YMD + " IS NULL";
+    public Map<String, Object> importCustomerDataChunked(Iterator<T004Dto> customers, Integer psnCd,
+            String fileHash, int chunkRows, int resumeAfterRow) throws SQLException {
+        Map<String, Object> resultMap = new HashMap<>();
+
+        try (Connection conn = DBUtils.getInstance().getConnection()) {
+            conn.setAutoCommit(false); // start transaction manually
+
+            try (RowWriter writer = new RowWriter(conn, loadContentHashes(conn), psnCd);
+                 PreparedStatement checkpointStmt = conn.prepareStatement(buildSaveCheckpointSql())) {
+
+                int rowsInChunk = 0;
+                int insertedBefore = 0;
+                while (customers.hasNext()) {
+                    T004Dto customer = customers.next();
+                    if (customer.getRowNumber() <= resumeAfterRow) {
+                        continue; // committed by an earlier attempt
+                    }
+                    writer.write(customer);
+
+                    if (++rowsInChunk == chunkRows) {
+                        // Flush the chunk and move the checkpoint in the same transaction
+                        writer.flush();
+                        saveCheckpoint(checkpointStmt, fileHash, customer.getRowNumber(), psnCd);
+                        conn.commit();
+                        insertedBefore = indexCommittedIds(writer.insertedIds, insertedBefore);
+                        rowsInChunk = 0;
+                    }
+                }
+
+                // Last, partial chunk; the file is complete so the checkpoint goes away
+                writer.flush();
+                deleteCheckpoint(conn, fileHash);
+                long dataVersion = readDataVersion(conn);
+                conn.commit();
+                indexCommittedIds(writer.insertedIds, insertedBefore);
+
+                resultMap.put("inserted", writer.insertedIndexes);
+                resultMap.put("insertedIds", writer.insertedIds);
+                // Rows awaiting a change check are reported after later rows with a known hash
+                Collections.sort(writer.updatedIndexes);
+                resultMap.put("updated", writer.updatedIndexes);
+                resultMap.put("dataVersion", dataVersion);
+                return resultMap;
+
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback(); // only the current chunk is lost
+                throw e;
+            } finally {
+                conn.setAutoCommit(true); // reset autocommit back to default
+            }
+        }
+    }
+
+    /**
+     * Returns the last row committed by an interrupted chunked import of a file.
+     *
+     * @param fileHash SHA-256 of the uploaded file, hex encoded
+     * @return the last committed row number, or 0 if there is no checkpoint
+     * @throws SQLException if the query fails
+     */
+    public int findCheckpoint(String fileHash) throws SQLException {
+        String sql = "SELECT " + TableConstants.CKPT_LAST_ROW_NO
+                + " FROM " + TableConstants.TABLE_IMPORT_CHECKPOINT
+                + " WHERE " + TableConstants.CKPT_FILE_HASH + " = ?";
 
-        // Open DB connection and prepare statement
         try (Connection conn = DBUtils.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, fileHash);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
 
-            // Bind parameter: set the customer ID
-            pstmt.setInt(1, customerId);
+    /**
+     * Returns the current customer data version: the last {@code ROWVERSION}
+     * value used in the database. Every insert, update and logical delete of
+     * {@code MSTCUSTOMER} advances it, so an unchanged value means no customer
+     * was written in between.
+     *
+     * @return the data version
+     * @throws SQLException if the query fails
+     */
+    public long getDataVersion() throws SQLException {
+        try (Connection conn = DBUtils.getInstance().getConnection()) {
+            return readDataVersion(conn);
+        }
+    }
+
+    /**
+     * Reads the customer data version on a connection. Inside an import
+     * transaction it includes the import's own, not yet committed, writes.
+     *
+     * @param conn open connection
+     * @return the data version
+     * @throws SQLException if the query fails
+     */
+    private static long readDataVersion(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT CAST(@@DBTS AS BIGINT)");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Counts the existing customers an import of the given rows would update,
+     * without writing anything. Uses the same change detection as
+     * {@link #importCustomerData}: the stored content hashes are loaded once,
+     * and customers without a stored hash are compared with their current
+     * values a chunk at a time. Runs on a read connection, so a dry run does
+     * not block writers.
+     *
+     * @param customers iterator over the customer rows, at most one per customer ID
+     * @return number of rows with a customer ID whose values differ from the stored ones
+     * @throws SQLException if a query fails
+     */
+    public int countChangedCustomers(Iterator<T004Dto> customers) throws SQLException {
+        try (Connection conn = DBUtils.getInstance().getReadConnection();
+             PreparedStatement checkStmt = conn.prepareStatement(buildCheckSql())) {
+            IntLongHashMap storedHashes = loadContentHashes(conn);
+            List<T004Dto> pendingChecks = new ArrayList<>(CHANGE_CHECK_CHUNK);
+            int changed = 0;
 
-            // Execute query and check if result count > 0
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() && rs.getInt(1) > 0;
+            while (customers.hasNext()) {
+                T004Dto customer = customers.next();
+                int customerId = customer.getCustomerID();
+                if (customerId == 0) {
+                    continue; // new customers are inserted, not updated
+                }
+                if (storedHashes.containsKey(customerId)) {
+                    if (storedHashes.get(customerId, 0L) != contentHash(customer, mapSex(customer.getSex()))) {
+                        changed++;
+                    }
+                } else {
+                    pendingChecks.add(customer);
+                    if (pendingChecks.size() == CHANGE_CHECK_CHUNK) {
+                        changed += countChangedRows(checkStmt, pendingChecks);
+                    }
+                }
+            }
+            if (!pendingChecks.isEmpty()) {
+                changed += countChangedRows(checkStmt, pendingChecks);
             }
+            return changed;
         }
     }
 
+    /**
+     * Compares a chunk of customers without a stored hash with their stored
+     * values. The chunk is cleared afterwards.
+     *
+     * @param checkStmt statement from {@link #buildCheckSql()}
+     * @param chunk     customers to compare (at most {@link #CHANGE_CHECK_CHUNK})
+     * @return number of customers whose values differ
+     * @throws SQLException database error
+     */
+    private int countChangedRows(PreparedStatement checkStmt, List<T004Dto> chunk) throws SQLException {
+        Map<Integer, T002Dto> existing = loadExistingRows(checkStmt, chunk);
+        int changed = 0;
+        for (T004Dto customer : chunk) {
+            if (isUpdateNeeded(existing.get(customer.getCustomerID()), customer, mapSex(customer.getSex()))) {
+                changed++;
+            }
+        }
+        chunk.clear();
+        return changed;
+    }
 
     /**
-     * Imports a list of customers: inserts new customers or updates existing ones.
+     * Imports a stream of customers with one set-based upsert.
      *
-     * <p>This method runs inside a transaction. If any insert/update fails, 
-     * all changes are rolled back. Customers without ID are treated as new inserts. 
-     * Existing customers are updated only if their data has changed.</p>
+     * <p>Intended for large files, where per-row JDBC batches dominate the
+     * import time. Inside a single transaction the method:</p>
+     * <ol>
+     *   <li>bulk-loads all rows into the session-scoped staging table
+     *       {@value #STAGING_TABLE} with {@link SQLServerBulkCopy};</li>
+     *   <li>draws customer IDs for new rows from {@code SEQ_CUSTOMER_ID} with
+     *       one {@code UPDATE}. Not {@link CustomerIdAllocator}: reserving a
+     *       block would run a statement on the connection while the bulk copy
+     *       is still streaming on it, and {@code NEXT VALUE FOR} is not
+     *       allowed inside {@code MERGE};</li>
+     *   <li>keeps only the last line per customer ID, since {@code MERGE} may
+     *       not update a target row twice;</li>
+     *   <li>backfills {@code CONTENT_HASH} for stored rows that have none but
+     *       equal the staged values, so they are not reported as updated;</li>
+     *   <li>runs one {@code MERGE} that inserts new rows and updates rows whose
+     *       hash differs, returning {@code $action} and the source line number
+     *       through {@code OUTPUT}.</li>
+     * </ol>
+     *
+     * <p>The result has the same shape as {@link #importCustomerData}, with the
+     * row numbers sorted, so the "Inserted/Updated line(s)" messages do not
+     * depend on the import mode.</p>
      *
-     * @param customers list of customer DTOs to be imported
+     * @param customers iterator over the validated customer rows
      * @param psnCd     personal code of the operator performing the action
-     * @return a result map containing:
-     *         <ul>
-     *           <li>"inserted" → list of row indexes that were inserted</li>
-     *           <li>"updated" → list of row indexes that were updated</li>
-     *         </ul>
-     * @throws SQLException if any database error occurs (insertion, update, or rollback)
+     * @return a result map containing "inserted", "insertedIds" and "updated" lists
+     *         and the "dataVersion" read before the commit
+     * @throws SQLException if any database error occurs
      */
-    public Map<String, List<Integer>> importCustomerData(List<T002Dto> customers, Integer psnCd) throws SQLException {
-        Map<String, List<Integer>> resultMap = new HashMap<>();
+    public Map<String, Object> mergeCustomerData(Iterator<T004Dto> customers, Integer psnCd) throws SQLException {
+        Map<String, Object> resultMap = new HashMap<>();
         List<Integer> insertedIndexes = new ArrayList<>();
+        List<Integer> insertedIds = new ArrayList<>();
         List<Integer> updatedIndexes = new ArrayList<>();
 
-        // Build SQL templates for insert, update, and check
-        String insertSql = buildInsertSql();
-        String updateSql = buildUpdateSql();
-        String checkSql = buildCheckSql();
-
-        // Get DB connection
         try (Connection conn = DBUtils.getInstance().getConnection()) {
             conn.setAutoCommit(false); // start transaction manually
 
-            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql);
-                 PreparedStatement updateStmt = conn.prepareStatement(updateSql);
-                 PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
+            try {
+                // Temp tables must be created in a plain batch; a prepared
+                // statement would drop them when its own scope ends
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(buildCreateStagingSql());
+                }
 
-                // Iterate over customers and decide insert/update
-                for (int i = 0; i < customers.size(); i++) {
-                    T002Dto customer = customers.get(i);
-                    int sexValue = mapSex(customer.getSex()); // map sex from string to int (0/1)
-
-                    if (customer.getCustomerID() == 0) {
-                        // Case 1: Insert new customer
-                        prepareInsertStatement(insertStmt, customer, sexValue, psnCd);
-                        insertStmt.addBatch();
-                        insertedIndexes.add(i + 1); // store line number (1-based index)
-                    } else if (isUpdateNeeded(checkStmt, customer, sexValue)) {
-                        // Case 2: Update existing customer only if data is different
-                        prepareUpdateStatement(updateStmt, customer, sexValue, psnCd);
-                        updateStmt.addBatch();
-                        updatedIndexes.add(i + 1);
+                // 1. Bulk-load the rows
+                try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(conn)) {
+                    SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+                    options.setBatchSize(BULK_COPY_BATCH_SIZE);
+                    options.setTableLock(true);
+                    options.setBulkCopyTimeout(0);
+                    bulkCopy.setBulkCopyOptions(options);
+                    bulkCopy.setDestinationTableName(STAGING_TABLE);
+                    bulkCopy.writeToServer(new CustomerBulkData(customers));
+                }
+
+                try (Statement stmt = conn.createStatement()) {
+                    // 2. Assign IDs to new rows, now that the bulk copy has ended
+                    stmt.executeUpdate("UPDATE " + STAGING_TABLE + " SET " + TableConstants.CUST_CUSTOMER_ID
+                            + " = NEXT VALUE FOR SEQ_CUSTOMER_ID WHERE NEW_ROW = 1");
+                    // 3. Last line wins for repeated IDs
+                    stmt.executeUpdate(buildDedupeStagingSql());
+                    // 4. Store hashes of unchanged rows that have none yet
+                    stmt.executeUpdate(buildBackfillFromStagingSql());
+                }
+
+                // 5. Upsert and collect the affected source lines
+                try (PreparedStatement merge = conn.prepareStatement(buildMergeSql())) {
+                    merge.setInt(1, psnCd);
+                    merge.setInt(2, psnCd);
+                    merge.setInt(3, psnCd);
+                    try (ResultSet rs = merge.executeQuery()) {
+                        while (rs.next()) {
+                            if ("INSERT".equals(rs.getString(1))) {
+                                insertedIndexes.add(rs.getInt(2));
+                                insertedIds.add(rs.getInt(3));
+                            } else {
+                                updatedIndexes.add(rs.getInt(2));
+                            }
+                        }
                     }
                 }
 
-                // Execute batch for insert and update separately
-                executeBatch(insertStmt, insertedIndexes);
-                executeBatch(updateStmt, updatedIndexes);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("DROP TABLE " + STAGING_TABLE);
+                }
 
+                long dataVersion = readDataVersion(conn);
                 conn.commit(); // commit all if success
 
-                // Return result summary
+                CustomerIdIndex.getInstance().addAll(insertedIds);
+
+                // OUTPUT order is not defined
+                sortByLine(insertedIndexes, insertedIds);
+                Collections.sort(updatedIndexes);
                 resultMap.put("inserted", insertedIndexes);
+                resultMap.put("insertedIds", insertedIds);
                 resultMap.put("updated", updatedIndexes);
+                resultMap.put("dataVersion", dataVersion);
                 return resultMap;
 
-            } catch (SQLException e) {
-                conn.rollback(); // rollback all changes if any error
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback(); // rollback all changes, staging table included
                 throw e;
             } finally {
                 conn.setAutoCommit(true); // reset autocommit back to default
@@ -137,29 +484,858 @@ public class T004Dao {
         }
     }
 
+    /**
+     * Imports a stream of customers over several connections writing concurrently.
+     *
+     * <p>Rows are split into {@code partitions} partitions, each written by its
+     * own thread through a {@link RowWriter} on its own connection and
+     * transaction. Existing customers go to the partition owning their
+     * {@link #PARTITION_BLOCK}-wide ID range, so no two partitions touch the
+     * same row and neighbouring IDs share a partition. New customers are spread
+     * round-robin. The stored content hashes are read once, before any
+     * partition starts writing, and split the same way.</p>
+     *
+     * <p>Lock footprint per partition is kept to single rows: every statement
+     * writes one row by key with a {@code ROWLOCK} hint, and change-detection
+     * reads are forced to seek, so a partition never scans rows locked by
+     * another one.</p>
+     *
+     * <p>The outcome is coordinated. If any partition fails while writing, all
+     * partitions are rolled back and nothing is saved. Otherwise they are
+     * committed one after the other; should a commit fail midway, the
+     * remaining partitions are rolled back and a {@link PartialImportException}
+     * reports which rows were saved and which were not.</p>
+     *
+     * @param customers  iterator over the validated customer rows
+     * @param psnCd      personal code of the operator performing the action
+     * @param partitions number of connections writing concurrently
+     * @return a result map containing the "inserted", "insertedIds" and "updated" lists, by row number,
+     *         and the "dataVersion" read before the first commit
+     * @throws PartialImportException if only some partitions were committed
+     * @throws SQLException if any database error occurs; nothing was saved
+     */
+    public Map<String, Object> importCustomerDataParallel(Iterator<T004Dto> customers, Integer psnCd,
+            int partitions) throws SQLException {
+
+        // Read the hashes before any partition holds locks
+        IntLongHashMap[] hashes;
+        try (Connection readConn = DBUtils.getInstance().getReadConnection()) {
+            hashes = loadContentHashes(readConn, partitions);
+        }
+
+        List<PartitionWriter> writers = new ArrayList<>(partitions);
+        ExecutorService executor = Executors.newFixedThreadPool(partitions);
+        try {
+            for (int p = 0; p < partitions; p++) {
+                Connection conn = DBUtils.getInstance().getConnection();
+                try {
+                    conn.setAutoCommit(false);
+                    writers.add(new PartitionWriter(conn, new RowWriter(conn, hashes[p], psnCd)));
+                } catch (SQLException e) {
+                    conn.close();
+                    throw e;
+                }
+            }
+            for (PartitionWriter writer : writers) {
+                writer.future = executor.submit(writer);
+            }
+
+            try {
+                dispatchRows(customers, writers);
+                for (PartitionWriter writer : writers) {
+                    awaitPartition(writer);
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Nothing is committed yet, so the whole import is undone
+                for (PartitionWriter writer : writers) {
+                    writer.future.cancel(true);
+                }
+                executor.shutdownNow();
+                awaitTermination(executor);
+                for (PartitionWriter writer : writers) {
+                    rollbackQuietly(writer.conn);
+                }
+                throw e;
+            }
+
+            return commitPartitions(writers);
+
+        } finally {
+            executor.shutdownNow();
+            for (PartitionWriter writer : writers) {
+                // Close the statements, then the connection; the outcome is
+                // already decided, so a close failure does not change it
+                try {
+                    writer.rows.close();
+                } catch (SQLException e) {
+                    // the connection is still closed below
+                } finally {
+                    try {
+                        writer.conn.close();
+                    } catch (SQLException e) {
+                        // nothing left to release
+                    }
+                }
+            }
+        }
+    }
+
 
     // ================= Helper Methods =================
 
     /**
-     * Execute batch if list is not empty.
+     * Loads the stored content hashes of all active customers.
      *
-     * @param stmt prepared statement
-     * @param indexes list of line numbers
+     * @param conn import connection
+     * @return map of customer ID to content hash; customers without a hash are absent
+     * @throws SQLException database error
+     */
+    private IntLongHashMap loadContentHashes(Connection conn) throws SQLException {
+        return loadContentHashes(conn, 1)[0];
+    }
+
+    /**
+     * Loads the stored content hashes of all active customers, split by
+     * {@link #partitionOf}.
+     *
+     * @param conn       connection to read with
+     * @param partitions number of partitions
+     * @return one map of customer ID to content hash per partition
+     * @throws SQLException database error
+     */
+    private IntLongHashMap[] loadContentHashes(Connection conn, int partitions) throws SQLException {
+        String sql = "SELECT " + TableConstants.CUST_CUSTOMER_ID + ", " + TableConstants.CUST_CONTENT_HASH
+                + " FROM " + TableConstants.TABLE_MSTCUSTOMER
+                + " WHERE " + TableConstants.CUST_DELETE_YMD + " IS NULL"
+                + " AND " + TableConstants.CUST_CONTENT_HASH + " IS NOT NULL";
+
+        IntLongHashMap[] hashes = new IntLongHashMap[partitions];
+        int expected = (int) Math.max(CustomerIdIndex.getInstance().size() / partitions, 1024);
+        for (int p = 0; p < partitions; p++) {
+            hashes[p] = new IntLongHashMap(expected);
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int customerId = rs.getInt(1);
+                hashes[partitionOf(customerId, partitions)].put(customerId, rs.getLong(2));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Returns the partition owning an existing customer: consecutive blocks
+     * of {@link #PARTITION_BLOCK} IDs are dealt out to the partitions in turn.
+     *
+     * @param customerId customer ID
+     * @param partitions number of partitions
+     * @return partition index
+     */
+    private static int partitionOf(int customerId, int partitions) {
+        return (customerId / PARTITION_BLOCK) % partitions;
+    }
+
+    /**
+     * Routes rows to the partition writers in lists of {@link #DISPATCH_ROWS},
+     * then sends each writer the end marker.
+     *
+     * @param customers validated rows
+     * @param writers   running partition writers
+     * @throws SQLException if a writer failed, which stops the dispatch
+     */
+    private void dispatchRows(Iterator<T004Dto> customers, List<PartitionWriter> writers) throws SQLException {
+        int partitions = writers.size();
+        List<List<T004Dto>> pending = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            pending.add(new ArrayList<>(DISPATCH_ROWS));
+        }
+
+        int nextInsertPartition = 0;
+        while (customers.hasNext()) {
+            T004Dto customer = customers.next();
+            int p;
+            if (customer.getCustomerID() == 0) {
+                p = nextInsertPartition;
+                nextInsertPartition = (nextInsertPartition + 1) % partitions;
+            } else {
+                p = partitionOf(customer.getCustomerID(), partitions);
+            }
+            pending.get(p).add(customer);
+            writers.get(p).rowNumbers.add(customer.getRowNumber());
+            if (pending.get(p).size() == DISPATCH_ROWS) {
+                handOver(writers.get(p), pending.get(p));
+                pending.set(p, new ArrayList<>(DISPATCH_ROWS));
+            }
+        }
+
+        for (int p = 0; p < partitions; p++) {
+            if (!pending.get(p).isEmpty()) {
+                handOver(writers.get(p), pending.get(p));
+            }
+            handOver(writers.get(p), END_OF_ROWS);
+        }
+    }
+
+    /**
+     * Queues rows for a partition writer, waiting while its queue is full.
+     * Stops waiting when the writer has ended, which before the end marker
+     * only happens on failure.
+     *
+     * @param writer partition writer
+     * @param rows   rows, or {@link #END_OF_ROWS}
+     * @throws SQLException the failure of the writer
+     */
+    private void handOver(PartitionWriter writer, List<T004Dto> rows) throws SQLException {
+        try {
+            while (!writer.queue.offer(rows, 100, TimeUnit.MILLISECONDS)) {
+                if (writer.future.isDone()) {
+                    awaitPartition(writer);
+                    throw new SQLException("Import partition stopped before the end of the file");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Import interrupted", e);
+        }
+    }
+
+    /**
+     * Waits for a partition writer to finish and rethrows its failure.
+     *
+     * @param writer partition writer
+     * @throws SQLException the failure of the writer
+     */
+    private void awaitPartition(PartitionWriter writer) throws SQLException {
+        try {
+            writer.future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("Import partition failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Import interrupted", e);
+        }
+    }
+
+    /**
+     * Commits the partitions in order. After a failed commit the remaining
+     * partitions are rolled back instead.
+     *
+     * @param writers partition writers that all finished writing
+     * @return a result map containing the "inserted", "insertedIds" and "updated" lists, by row number,
+     *         and the "dataVersion" read before the first commit
+     * @throws PartialImportException if a commit failed after another succeeded
+     * @throws SQLException if the first commit failed; nothing was saved
+     */
+    private Map<String, Object> commitPartitions(List<PartitionWriter> writers) throws SQLException {
+        List<Integer> insertedIndexes = new ArrayList<>();
+        List<Integer> insertedIds = new ArrayList<>();
+        List<Integer> updatedIndexes = new ArrayList<>();
+        List<Integer> notSaved = new ArrayList<>();
+        SQLException commitFailure = null;
+
+        // Every partition has written, so this covers all of them
+        long dataVersion = readDataVersion(writers.get(writers.size() - 1).conn);
+
+        for (PartitionWriter writer : writers) {
+            if (commitFailure == null) {
+                try {
+                    writer.conn.commit();
+                    CustomerIdIndex.getInstance().addAll(writer.rows.insertedIds);
+                    insertedIndexes.addAll(writer.rows.insertedIndexes);
+                    insertedIds.addAll(writer.rows.insertedIds);
+                    updatedIndexes.addAll(writer.rows.updatedIndexes);
+                    continue;
+                } catch (SQLException e) {
+                    commitFailure = e;
+                }
+            }
+            rollbackQuietly(writer.conn);
+            notSaved.addAll(writer.rowNumbers);
+        }
+
+        sortByLine(insertedIndexes, insertedIds);
+        Collections.sort(updatedIndexes);
+
+        if (commitFailure != null) {
+            if (notSaved.size() == writersRowCount(writers)) {
+                throw commitFailure; // the first commit failed, nothing is saved
+            }
+            Collections.sort(notSaved);
+            throw new PartialImportException(commitFailure, insertedIndexes, insertedIds, updatedIndexes, notSaved);
+        }
+
+        Map<String, Object> resultMap = new HashMap<>();
+        resultMap.put("inserted", insertedIndexes);
+        resultMap.put("insertedIds", insertedIds);
+        resultMap.put("updated", updatedIndexes);
+        resultMap.put("dataVersion", dataVersion);
+        return resultMap;
+    }
+
+    /**
+     * Sorts inserted row numbers, keeping each allocated ID next to its row.
+     * The pairs are packed into longs, row number in the high half, so one
+     * primitive sort orders both lists.
+     *
+     * @param lines inserted row numbers
+     * @param ids   allocated IDs, aligned with {@code lines}
+     */
+    private static void sortByLine(List<Integer> lines, List<Integer> ids) {
+        long[] pairs = new long[lines.size()];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = ((long) lines.get(i) << 32) | (ids.get(i) & 0xFFFFFFFFL);
+        }
+        Arrays.sort(pairs);
+        for (int i = 0; i < pairs.length; i++) {
+            lines.set(i, (int) (pairs[i] >>> 32));
+            ids.set(i, (int) pairs[i]);
+        }
+    }
+
+    /**
+     * Adds the IDs inserted since the previous commit of a chunked import to
+     * {@link CustomerIdIndex}.
+     *
+     * @param insertedIds all IDs inserted so far
+     * @param from        number of IDs already indexed
+     * @return the new number of indexed IDs
+     */
+    private static int indexCommittedIds(List<Integer> insertedIds, int from) {
+        if (insertedIds.size() > from) {
+            CustomerIdIndex.getInstance().addAll(insertedIds.subList(from, insertedIds.size()));
+        }
+        return insertedIds.size();
+    }
+
+    /**
+     * Counts the rows routed to all partitions.
+     *
+     * @param writers partition writers
+     * @return total row count
+     */
+    private static int writersRowCount(List<PartitionWriter> writers) {
+        int count = 0;
+        for (PartitionWriter writer : writers) {
+            count += writer.rowNumbers.size();
+        }
+        return count;
+    }
+
+    /**
+     * Rolls back a connection, ignoring failures; used on paths that already
+     * report another error.
+     *
+     * @param conn connection to roll back
+     */
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            // the original failure is reported instead
+        }
+    }
+
+    /**
+     * Waits for cancelled partition threads to stop before their connections
+     * are rolled back.
+     *
+     * @param executor executor that was shut down
+     */
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One partition of {@link #importCustomerDataParallel}: drains its queue
+     * into a {@link RowWriter} on its own connection until the end marker,
+     * then flushes. The caller commits or rolls back.
+     */
+    private static final class PartitionWriter implements Callable<Void> {
+
+        /** Connection of this partition; auto-commit is off */
+        final Connection conn;
+
+        /** Statements and batches of this partition */
+        final RowWriter rows;
+
+        /** Lists of rows handed over by the dispatching thread */
+        final BlockingQueue<List<T004Dto>> queue = new ArrayBlockingQueue<>(PARTITION_QUEUE_LISTS);
+
+        /** Row numbers routed to this partition, for the partial-success report */
+        final List<Integer> rowNumbers = new ArrayList<>();
+
+        /** Running task */
+        Future<Void> future;
+
+        PartitionWriter(Connection conn, RowWriter rows) {
+            this.conn = conn;
+            this.rows = rows;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            while (true) {
+                List<T004Dto> batch = queue.take();
+                if (batch == END_OF_ROWS) {
+                    break;
+                }
+                for (T004Dto customer : batch) {
+                    rows.write(customer);
+                }
+            }
+            rows.flush();
+            return null;
+        }
+    }
+
+    /**
+     * Computes the content hash of a customer row as it is written.
+     *
+     * @param customer customer DTO
+     * @param sexValue mapped sex
+     * @return content hash of the business columns
+     */
+    private long contentHash(T002Dto customer, int sexValue) {
+        return ContentHash.of(customer.getCustomerName(), String.valueOf(sexValue), customer.getBirthday(),
+                customer.getEmail(), customer.getAddress());
+    }
+
+    /**
+     * Estimates the parameter payload of an insert or update, for the
+     * byte limit of {@link BatchFlusher}. Strings are sent as UTF-16.
+     *
+     * @param customer customer DTO
+     * @return estimated size in bytes
+     */
+    private long estimatePayload(T002Dto customer) {
+        return FIXED_PAYLOAD_BYTES + 2L * (length(customer.getCustomerName()) + length(customer.getBirthday())
+                + length(customer.getEmail()) + length(customer.getAddress()));
+    }
+
+    /**
+     * Null-safe string length.
+     *
+     * @param value string or null
+     * @return its length, or 0
+     */
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Writes customers through batched insert/update statements on one
+     * connection. Shared by the all-or-nothing and the chunked import; the
+     * caller owns the transaction and calls {@link #flush()} before each commit.
+     */
+    private final class RowWriter implements AutoCloseable {
+
+        private final PreparedStatement insertStmt;
+        private final PreparedStatement updateStmt;
+        private final PreparedStatement checkStmt;
+        private final PreparedStatement backfillStmt;
+
+        private final BatchFlusher inserts;
+        private final BatchFlusher updates;
+        private final BatchFlusher backfills;
+
+        /** Stored content hashes, kept current as rows are updated */
+        private final IntLongHashMap storedHashes;
+
+        /** Customers without a stored hash, waiting for a chunk comparison */
+        private final List<T004Dto> pendingChecks = new ArrayList<>(CHANGE_CHECK_CHUNK);
+
+        private final Connection conn;
+        private final Integer psnCd;
+
+        /** Row numbers written so far */
+        final List<Integer> insertedIndexes = new ArrayList<>();
+        final List<Integer> updatedIndexes = new ArrayList<>();
+
+        /** CUSTOMER_ID given to each inserted row, aligned with {@link #insertedIndexes} */
+        final List<Integer> insertedIds = new ArrayList<>();
+
+        RowWriter(Connection conn, IntLongHashMap storedHashes, Integer psnCd) throws SQLException {
+            this.conn = conn;
+            this.storedHashes = storedHashes;
+            this.psnCd = psnCd;
+            insertStmt = conn.prepareStatement(buildInsertSql());
+            updateStmt = conn.prepareStatement(buildUpdateSql());
+            checkStmt = conn.prepareStatement(buildCheckSql());
+            backfillStmt = conn.prepareStatement(buildBackfillHashSql());
+            inserts = new BatchFlusher(insertStmt, "import.insert");
+            updates = new BatchFlusher(updateStmt, "import.update");
+            backfills = new BatchFlusher(backfillStmt, "import.backfillHash");
+        }
+
+        /**
+         * Inserts, updates or skips one customer.
+         *
+         * @param customer the customer row
+         * @throws SQLException database error
+         */
+        void write(T004Dto customer) throws SQLException {
+            int sexValue = mapSex(customer.getSex()); // map sex from string to int (0/1)
+            long contentHash = contentHash(customer, sexValue);
+            int customerId = customer.getCustomerID();
+
+            if (customerId == 0) {
+                // Case 1: Insert new customer under an ID from the reserved block
+                int newId = CustomerIdAllocator.getInstance().nextId(conn);
+                prepareInsertStatement(insertStmt, customer, newId, sexValue, contentHash, psnCd);
+                inserts.add(estimatePayload(customer));
+                insertedIndexes.add(customer.getRowNumber());
+                insertedIds.add(newId);
+            } else if (storedHashes.containsKey(customerId)) {
+                // Case 2: Hash known, update only if it differs
+                if (storedHashes.get(customerId, 0L) != contentHash) {
+                    queueUpdate(customer, sexValue, contentHash);
+                }
+            } else {
+                // Case 3: No stored hash, compared with the database once its chunk is full
+                pendingChecks.add(customer);
+                if (pendingChecks.size() == CHANGE_CHECK_CHUNK) {
+                    queueChangedRows();
+                }
+            }
+        }
+
+        /**
+         * Compares the pending partial chunk and sends all pending batches.
+         *
+         * @throws SQLException database error
+         */
+        void flush() throws SQLException {
+            if (!pendingChecks.isEmpty()) {
+                queueChangedRows();
+            }
+            inserts.flush();
+            updates.flush();
+            backfills.flush();
+        }
+
+        /**
+         * Adds an update to the batch and remembers the new hash, so a later
+         * line for the same customer is compared with what this import wrote.
+         *
+         * @param customer    the customer row
+         * @param sexValue    mapped sex
+         * @param contentHash content hash of the row
+         * @throws SQLException database error
+         */
+        private void queueUpdate(T004Dto customer, int sexValue, long contentHash) throws SQLException {
+            prepareUpdateStatement(updateStmt, customer, sexValue, contentHash, psnCd);
+            updates.add(estimatePayload(customer));
+            updatedIndexes.add(customer.getRowNumber());
+            storedHashes.put(customer.getCustomerID(), contentHash);
+        }
+
+        /**
+         * Compares the pending chunk with the stored values. Changed rows are
+         * added to the update batch; unchanged rows get their content hash
+         * backfilled. The chunk is cleared afterwards.
+         *
+         * @throws SQLException database error
+         */
+        private void queueChangedRows() throws SQLException {
+            Map<Integer, T002Dto> existing = loadExistingRows(checkStmt, pendingChecks);
+            for (T004Dto customer : pendingChecks) {
+                int sexValue = mapSex(customer.getSex());
+                long contentHash = contentHash(customer, sexValue);
+                T002Dto stored = existing.get(customer.getCustomerID());
+                if (isUpdateNeeded(stored, customer, sexValue)) {
+                    queueUpdate(customer, sexValue, contentHash);
+                } else {
+                    backfillStmt.setLong(1, contentHash);
+                    backfillStmt.setInt(2, customer.getCustomerID());
+                    backfills.add(BACKFILL_PAYLOAD_BYTES);
+                    storedHashes.put(customer.getCustomerID(), contentHash);
+                }
+            }
+            pendingChecks.clear();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            // Close all four statements, reporting the first failure
+            SQLException failure = null;
+            for (PreparedStatement stmt : new PreparedStatement[] { insertStmt, updateStmt, checkStmt, backfillStmt }) {
+                try {
+                    if (stmt != null) {
+                        stmt.close();
+                    }
+                } catch (SQLException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Stores the last committed row of a chunked import.
+     *
+     * @param stmt      prepared statement from {@link #buildSaveCheckpointSql()}
+     * @param fileHash  SHA-256 of the file
+     * @param lastRowNo last row of the chunk being committed
+     * @param psnCd     personal code
+     * @throws SQLException database error
+     */
+    private void saveCheckpoint(PreparedStatement stmt, String fileHash, int lastRowNo, Integer psnCd)
+            throws SQLException {
+        stmt.setString(1, fileHash);
+        stmt.setInt(2, lastRowNo);
+        stmt.setInt(3, psnCd);
+        stmt.executeUpdate();
+    }
+
+    /**
+     * Removes the checkpoint of a completed import.
+     *
+     * @param conn     import connection
+     * @param fileHash SHA-256 of the file
      * @throws SQLException database error
      */
-    private void executeBatch(PreparedStatement stmt, List<Integer> indexes) throws SQLException {
-        if (!indexes.isEmpty()) stmt.executeBatch();
+    private void deleteCheckpoint(Connection conn, String fileHash) throws SQLException {
+        String sql = "DELETE FROM " + TableConstants.TABLE_IMPORT_CHECKPOINT
+                + " WHERE " + TableConstants.CKPT_FILE_HASH + " = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, fileHash);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Build SQL inserting or moving forward the checkpoint of a file.
+     * Parameters: file hash, last row number, personal code.
+     *
+     * @return SQL string
+     */
+    private String buildSaveCheckpointSql() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("MERGE ").append(TableConstants.TABLE_IMPORT_CHECKPOINT).append(" WITH (HOLDLOCK) AS T ")
+          .append("USING (SELECT ? AS ").append(TableConstants.CKPT_FILE_HASH).append(", ? AS ")
+          .append(TableConstants.CKPT_LAST_ROW_NO).append(", ? AS ").append(TableConstants.CKPT_PSN_CD).append(") AS S ")
+          .append("ON T.").append(TableConstants.CKPT_FILE_HASH).append(" = S.").append(TableConstants.CKPT_FILE_HASH).append(" ")
+          .append("WHEN MATCHED THEN UPDATE SET ")
+          .append(TableConstants.CKPT_LAST_ROW_NO).append(" = S.").append(TableConstants.CKPT_LAST_ROW_NO).append(", ")
+          .append(TableConstants.CKPT_PSN_CD).append(" = S.").append(TableConstants.CKPT_PSN_CD).append(", ")
+          .append(TableConstants.CKPT_UPDATE_YMD).append(" = CURRENT_TIMESTAMP ")
+          .append("WHEN NOT MATCHED THEN INSERT (")
+          .append(TableConstants.CKPT_FILE_HASH).append(", ")
+          .append(TableConstants.CKPT_LAST_ROW_NO).append(", ")
+          .append(TableConstants.CKPT_PSN_CD).append(", ")
+          .append(TableConstants.CKPT_UPDATE_YMD).append(") VALUES (S.")
+          .append(TableConstants.CKPT_FILE_HASH).append(", S.")
+          .append(TableConstants.CKPT_LAST_ROW_NO).append(", S.")
+          .append(TableConstants.CKPT_PSN_CD).append(", CURRENT_TIMESTAMP);");
+        return sb.toString();
+    }
+
+    /**
+     * Feeds validated customers to {@link SQLServerBulkCopy}, one row per
+     * {@link #next()} call, in {@link #STAGING_COLUMNS} order.
+     */
+    private final class CustomerBulkData implements ISQLServerBulkData {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Source rows */
+        private final transient Iterator<T004Dto> customers;
+
+        /** Values of the current row */
+        private Object[] row;
+
+        CustomerBulkData(Iterator<T004Dto> customers) {
+            this.customers = customers;
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            Set<Integer> ordinals = new LinkedHashSet<>();
+            for (int i = 1; i <= STAGING_COLUMNS.length; i++) {
+                ordinals.add(i);
+            }
+            return ordinals;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return STAGING_COLUMNS[column - 1];
+        }
+
+        @Override
+        public int getColumnType(int column) {
+            return STAGING_TYPES[column - 1];
+        }
+
+        @Override
+        public int getPrecision(int column) {
+            return STAGING_PRECISIONS[column - 1];
+        }
+
+        @Override
+        public int getScale(int column) {
+            return 0;
+        }
+
+        @Override
+        public boolean next() {
+            if (!customers.hasNext()) {
+                return false;
+            }
+            T004Dto customer = customers.next();
+            int sexValue = mapSex(customer.getSex());
+            // New rows carry ID 0 until the UPDATE after the bulk copy
+            row = new Object[] {
+                customer.getRowNumber(), customer.getCustomerID(), customer.getCustomerID() == 0,
+                customer.getCustomerName(), sexValue, customer.getBirthday(),
+                customer.getEmail(), customer.getAddress(), contentHash(customer, sexValue)
+            };
+            return true;
+        }
+
+        @Override
+        public Object[] getRowData() {
+            return row;
+        }
+    }
+
+    /**
+     * Build SQL creating the staging table for {@link #mergeCustomerData}.
+     * Business columns are kept as strings, as in the batched statements, so
+     * SQL Server applies the same conversions to the target columns.
+     *
+     * @return SQL string
+     */
+    private String buildCreateStagingSql() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("IF OBJECT_ID('tempdb..").append(STAGING_TABLE).append("') IS NOT NULL ")
+          .append("DROP TABLE ").append(STAGING_TABLE).append("; ")
+          .append("CREATE TABLE ").append(STAGING_TABLE).append(" (")
+          .append("LINE_NO INT NOT NULL PRIMARY KEY, ")
+          .append(TableConstants.CUST_CUSTOMER_ID).append(" INT NOT NULL, ")
+          .append("NEW_ROW BIT NOT NULL, ")
+          .append(TableConstants.CUST_CUSTOMER_NAME).append(" NVARCHAR(").append(Constants.MAX_CUSTOMER_NAME_LENGTH).append("), ")
+          .append(TableConstants.CUST_SEX).append(" INT NOT NULL, ")
+          .append(TableConstants.CUST_BIRTHDAY).append(" NVARCHAR(20), ")
+          .append(TableConstants.CUST_EMAIL).append(" NVARCHAR(4000), ")
+          .append(TableConstants.CUST_ADDRESS).append(" NVARCHAR(").append(Constants.MAX_ADDRESS_LENGTH).append("), ")
+          .append(TableConstants.CUST_CONTENT_HASH).append(" BIGINT NOT NULL)");
+        return sb.toString();
     }
 
     /**
-     * Build SQL for inserting a customer.
+     * Build SQL removing all but the last staged line of each customer ID.
+     *
+     * @return SQL string
+     */
+    private String buildDedupeStagingSql() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("WITH RANKED AS (SELECT ROW_NUMBER() OVER (PARTITION BY ")
+          .append(TableConstants.CUST_CUSTOMER_ID).append(" ORDER BY LINE_NO DESC) AS RN ")
+          .append("FROM ").append(STAGING_TABLE).append(") ")
+          .append("DELETE FROM RANKED WHERE RN > 1");
+        return sb.toString();
+    }
+
+    /**
+     * Build SQL storing the staged hash on stored rows that have no hash yet
+     * and whose business columns equal the staged ones. {@code EXCEPT} compares
+     * NULLs as equal.
+     *
+     * @return SQL string
+     */
+    private String buildBackfillFromStagingSql() {
+        String columns = businessColumns();
+        StringBuilder sb = new StringBuilder();
+        sb.append("UPDATE T SET T.").append(TableConstants.CUST_CONTENT_HASH).append(" = S.").append(TableConstants.CUST_CONTENT_HASH)
+          .append(" FROM ").append(TableConstants.TABLE_MSTCUSTOMER).append(" T")
+          .append(" JOIN ").append(STAGING_TABLE).append(" S ON T.").append(TableConstants.CUST_CUSTOMER_ID)
+          .append(" = S.").append(TableConstants.CUST_CUSTOMER_ID)
+          .append(" WHERE S.NEW_ROW = 0 AND T.").append(TableConstants.CUST_CONTENT_HASH).append(" IS NULL")
+          .append(" AND NOT EXISTS (SELECT ").append(columns.replace("#", "S."))
+          .append(" EXCEPT SELECT ").append(columns.replace("#", "T.")).append(")");
+        return sb.toString();
+    }
+
+    /**
+     * Build the {@code MERGE} from the staging table into {@code MSTCUSTOMER}.
+     * Parameters: UPDATE_PSN_CD of updates, INSERT_PSN_CD and UPDATE_PSN_CD of inserts.
+     *
+     * @return SQL string
+     */
+    private String buildMergeSql() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("MERGE ").append(TableConstants.TABLE_MSTCUSTOMER).append(" WITH (HOLDLOCK) AS T ")
+          .append("USING ").append(STAGING_TABLE).append(" AS S ")
+          .append("ON T.").append(TableConstants.CUST_CUSTOMER_ID).append(" = S.").append(TableConstants.CUST_CUSTOMER_ID).append(" ")
+          // Update existing customers whose content changed
+          .append("WHEN MATCHED AND (T.").append(TableConstants.CUST_CONTENT_HASH).append(" IS NULL OR T.")
+          .append(TableConstants.CUST_CONTENT_HASH).append(" <> S.").append(TableConstants.CUST_CONTENT_HASH).append(") THEN UPDATE SET ")
+          .append(TableConstants.CUST_CUSTOMER_NAME).append(" = S.").append(TableConstants.CUST_CUSTOMER_NAME).append(", ")
+          .append(TableConstants.CUST_SEX).append(" = S.").append(TableConstants.CUST_SEX).append(", ")
+          .append(TableConstants.CUST_BIRTHDAY).append(" = S.").append(TableConstants.CUST_BIRTHDAY).append(", ")
+          .append(TableConstants.CUST_EMAIL).append(" = S.").append(TableConstants.CUST_EMAIL).append(", ")
+          .append(TableConstants.CUST_ADDRESS).append(" = S.").append(TableConstants.CUST_ADDRESS).append(", ")
+          .append(TableConstants.CUST_UPDATE_YMD).append(" = CURRENT_TIMESTAMP, ")
+          .append(TableConstants.CUST_UPDATE_PSN_CD).append(" = ?, ")
+          .append(TableConstants.CUST_CONTENT_HASH).append(" = S.").append(TableConstants.CUST_CONTENT_HASH).append(" ")
+          // Insert new customers only; a staged ID that no longer exists is not re-created
+          .append("WHEN NOT MATCHED BY TARGET AND S.NEW_ROW = 1 THEN INSERT (")
+          .append(TableConstants.CUST_CUSTOMER_ID).append(", ")
+          .append(businessColumns().replace("#", "")).append(", ")
+          .append(TableConstants.CUST_DELETE_YMD).append(", ")
+          .append(TableConstants.CUST_INSERT_YMD).append(", ")
+          .append(TableConstants.CUST_INSERT_PSN_CD).append(", ")
+          .append(TableConstants.CUST_UPDATE_YMD).append(", ")
+          .append(TableConstants.CUST_UPDATE_PSN_CD).append(", ")
+          .append(TableConstants.CUST_CONTENT_HASH).append(") VALUES (S.")
+          .append(TableConstants.CUST_CUSTOMER_ID).append(", ")
+          .append(businessColumns().replace("#", "S.")).append(", ")
+          .append("NULL, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, ?, S.").append(TableConstants.CUST_CONTENT_HASH).append(") ")
+          .append("OUTPUT $action, S.LINE_NO, S.").append(TableConstants.CUST_CUSTOMER_ID).append(";");
+        return sb.toString();
+    }
+
+    /**
+     * Lists the business columns, each prefixed with {@code #} for the caller
+     * to replace with a table alias.
+     *
+     * @return comma-separated column list
+     */
+    private String businessColumns() {
+        return "#" + TableConstants.CUST_CUSTOMER_NAME + ", #" + TableConstants.CUST_SEX + ", #"
+                + TableConstants.CUST_BIRTHDAY + ", #" + TableConstants.CUST_EMAIL + ", #"
+                + TableConstants.CUST_ADDRESS;
+    }
+
+    /**
+     * Build SQL for inserting a customer. The ID, allocated by
+     * {@link CustomerIdAllocator}, is the last parameter.
      *
      * @return SQL string
      */
     private String buildInsertSql() {
         StringBuilder sb = new StringBuilder();
         sb.append("INSERT INTO ").append(TableConstants.TABLE_MSTCUSTOMER).append(" (")
-          .append(TableConstants.CUST_CUSTOMER_ID).append(", ")
           .append(TableConstants.CUST_CUSTOMER_NAME).append(", ")
           .append(TableConstants.CUST_SEX).append(", ")
           .append(TableConstants.CUST_BIRTHDAY).append(", ")
@@ -169,44 +1345,68 @@ public class T004Dao {
           .append(TableConstants.CUST_INSERT_YMD).append(", ")
           .append(TableConstants.CUST_INSERT_PSN_CD).append(", ")
           .append(TableConstants.CUST_UPDATE_YMD).append(", ")
-          .append(TableConstants.CUST_UPDATE_PSN_CD).append(") ")
-          .append("VALUES (NEXT VALUE FOR SEQ_CUSTOMER_ID, ?, ?, ?, ?, ?, NULL, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, ?)");
+          .append(TableConstants.CUST_UPDATE_PSN_CD).append(", ")
+          .append(TableConstants.CUST_CONTENT_HASH).append(", ")
+          .append(TableConstants.CUST_CUSTOMER_ID).append(") ")
+          .append("VALUES (?, ?, ?, ?, ?, NULL, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, ?, ?, ?)");
         return sb.toString();
     }
     /**
-     * Build SQL for updating a customer.
+     * Build SQL for updating a customer. Single-row by key; the ROWLOCK hint
+     * keeps it from taking page locks that another import partition may need.
      *
      * @return SQL string
      */
     private String buildUpdateSql() {
         StringBuilder sb = new StringBuilder();
-        sb.append("UPDATE ").append(TableConstants.TABLE_MSTCUSTOMER).append(" SET ")
+        sb.append("UPDATE ").append(TableConstants.TABLE_MSTCUSTOMER).append(" WITH (ROWLOCK) SET ")
           .append(TableConstants.CUST_CUSTOMER_NAME).append(" = ?, ")
           .append(TableConstants.CUST_SEX).append(" = ?, ")
           .append(TableConstants.CUST_BIRTHDAY).append(" = ?, ")
           .append(TableConstants.CUST_EMAIL).append(" = ?, ")
           .append(TableConstants.CUST_ADDRESS).append(" = ?, ")
           .append(TableConstants.CUST_UPDATE_YMD).append(" = CURRENT_TIMESTAMP, ")
-          .append(TableConstants.CUST_UPDATE_PSN_CD).append(" = ? ")
+          .append(TableConstants.CUST_UPDATE_PSN_CD).append(" = ?, ")
+          .append(TableConstants.CUST_CONTENT_HASH).append(" = ? ")
           .append("WHERE ").append(TableConstants.CUST_CUSTOMER_ID).append(" = ?");
         return sb.toString();
     }
 
     /**
-     * Build SQL for checking existing customer.
+     * Build SQL for storing the content hash of an unchanged customer that
+     * does not have one yet. Audit columns are left untouched.
+     *
+     * @return SQL string
+     */
+    private String buildBackfillHashSql() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("UPDATE ").append(TableConstants.TABLE_MSTCUSTOMER).append(" WITH (ROWLOCK) SET ")
+          .append(TableConstants.CUST_CONTENT_HASH).append(" = ? ")
+          .append("WHERE ").append(TableConstants.CUST_CUSTOMER_ID).append(" = ? ")
+          .append("AND ").append(TableConstants.CUST_CONTENT_HASH).append(" IS NULL");
+        return sb.toString();
+    }
+
+    /**
+     * Build SQL for loading a chunk of existing customers.
+     * The IN list always has {@link #CHANGE_CHECK_CHUNK} placeholders. The
+     * read is forced to seek the key, so it never scans rows that another
+     * partition of a parallel import holds locked.
      *
      * @return SQL string
      */
     private String buildCheckSql() {
         StringBuilder sb = new StringBuilder();
         sb.append("SELECT ")
+          .append(TableConstants.CUST_CUSTOMER_ID).append(", ")
           .append(TableConstants.CUST_CUSTOMER_NAME).append(", ")
           .append(TableConstants.CUST_SEX).append(", ")
           .append(TableConstants.CUST_BIRTHDAY).append(", ")
           .append(TableConstants.CUST_EMAIL).append(", ")
           .append(TableConstants.CUST_ADDRESS).append(" ")
-          .append("FROM ").append(TableConstants.TABLE_MSTCUSTOMER).append(" ")
-          .append("WHERE ").append(TableConstants.CUST_CUSTOMER_ID).append(" = ? ")
+          .append("FROM ").append(TableConstants.TABLE_MSTCUSTOMER).append(" WITH (FORCESEEK) ")
+          .append("WHERE ").append(TableConstants.CUST_CUSTOMER_ID).append(" IN (")
+          .append(String.join(",", Collections.nCopies(CHANGE_CHECK_CHUNK, "?"))).append(") ")
           .append("AND ").append(TableConstants.CUST_DELETE_YMD).append(" IS NULL");
         return sb.toString();
     }
@@ -216,11 +1416,14 @@ public class T004Dao {
      *
      * @param stmt prepared statement
      * @param customer DTO
+     * @param customerId allocated customer ID
      * @param sexValue mapped sex
+     * @param contentHash content hash of the row
      * @param psnCd personal code
      * @throws SQLException database error
      */
-    private void prepareInsertStatement(PreparedStatement stmt, T002Dto customer, int sexValue, Integer psnCd) throws SQLException {
+    private void prepareInsertStatement(PreparedStatement stmt, T002Dto customer, int customerId, int sexValue,
+            long contentHash, Integer psnCd) throws SQLException {
         stmt.setString(1, customer.getCustomerName());
         stmt.setInt(2, sexValue);
         stmt.setString(3, customer.getBirthday());
@@ -228,6 +1431,8 @@ public class T004Dao {
         stmt.setString(5, customer.getAddress());
         stmt.setInt(6, psnCd);
         stmt.setInt(7, psnCd);
+        stmt.setLong(8, contentHash);
+        stmt.setInt(9, customerId);
     }
 
     /**
@@ -236,41 +1441,71 @@ public class T004Dao {
      * @param stmt prepared statement
      * @param customer DTO
      * @param sexValue mapped sex
+     * @param contentHash content hash of the row
      * @param psnCd personal code
      * @throws SQLException database error
      */
-    private void prepareUpdateStatement(PreparedStatement stmt, T002Dto customer, int sexValue, Integer psnCd) throws SQLException {
+    private void prepareUpdateStatement(PreparedStatement stmt, T002Dto customer, int sexValue, long contentHash,
+            Integer psnCd) throws SQLException {
         stmt.setString(1, customer.getCustomerName());
         stmt.setInt(2, sexValue);
         stmt.setString(3, customer.getBirthday());
         stmt.setString(4, customer.getEmail());
         stmt.setString(5, customer.getAddress());
         stmt.setInt(6, psnCd);
-        stmt.setInt(7, customer.getCustomerID());
+        stmt.setLong(7, contentHash);
+        stmt.setInt(8, customer.getCustomerID());
     }
 
     /**
-     * Determine if update is needed by comparing with existing record.
+     * Loads the stored values of a chunk of customers with one query.
+     * Unused placeholders of a partial chunk repeat the first ID.
      *
-     * @param checkStmt prepared statement for checking
-     * @param newCustomer new customer DTO
-     * @param newSexValue mapped sex
-     * @return true if update required
+     * @param checkStmt prepared chunk query
+     * @param chunk     customers to load (at most {@link #CHANGE_CHECK_CHUNK})
+     * @return stored values keyed by customer ID; deleted or missing IDs are absent
      * @throws SQLException database error
      */
-    private boolean isUpdateNeeded(PreparedStatement checkStmt, T002Dto newCustomer, int newSexValue) throws SQLException {
-        checkStmt.setInt(1, newCustomer.getCustomerID());
+    private Map<Integer, T002Dto> loadExistingRows(PreparedStatement checkStmt, List<T004Dto> chunk) throws SQLException {
+        for (int i = 0; i < CHANGE_CHECK_CHUNK; i++) {
+            T004Dto customer = chunk.get(i < chunk.size() ? i : 0);
+            checkStmt.setInt(i + 1, customer.getCustomerID());
+        }
+
+        Map<Integer, T002Dto> existing = new HashMap<>(chunk.size() * 2);
         try (ResultSet rs = checkStmt.executeQuery()) {
-            if (rs.next()) {
-                boolean nameChanged = !rs.getString(TableConstants.CUST_CUSTOMER_NAME).equals(newCustomer.getCustomerName());
-                boolean sexChanged = rs.getInt(TableConstants.CUST_SEX) != newSexValue;
-                boolean birthdayChanged = !rs.getString(TableConstants.CUST_BIRTHDAY).equals(newCustomer.getBirthday());
-                boolean emailChanged = !rs.getString(TableConstants.CUST_EMAIL).equals(newCustomer.getEmail());
-                boolean addressChanged = !rs.getString(TableConstants.CUST_ADDRESS).equals(newCustomer.getAddress());
-                return nameChanged || sexChanged || birthdayChanged || emailChanged || addressChanged;
+            while (rs.next()) {
+                T002Dto dto = new T002Dto();
+                dto.setCustomerID(rs.getInt(TableConstants.CUST_CUSTOMER_ID));
+                dto.setCustomerName(rs.getString(TableConstants.CUST_CUSTOMER_NAME));
+                dto.setSex(String.valueOf(rs.getInt(TableConstants.CUST_SEX)));
+                dto.setBirthday(rs.getString(TableConstants.CUST_BIRTHDAY));
+                dto.setEmail(rs.getString(TableConstants.CUST_EMAIL));
+                dto.setAddress(rs.getString(TableConstants.CUST_ADDRESS));
+                existing.put(dto.getCustomerID(), dto);
             }
         }
-        return true; // update if record not found
+        return existing;
+    }
+
+    /**
+     * Determine if update is needed by comparing with the stored record.
+     *
+     * @param stored      stored values, or null if the record was not found
+     * @param newCustomer new customer DTO
+     * @param newSexValue mapped sex
+     * @return true if update required
+     */
+    private boolean isUpdateNeeded(T002Dto stored, T002Dto newCustomer, int newSexValue) {
+        if (stored == null) {
+            return true; // update if record not found
+        }
+        boolean nameChanged = !Objects.equals(stored.getCustomerName(), newCustomer.getCustomerName());
+        boolean sexChanged = !String.valueOf(newSexValue).equals(stored.getSex());
+        boolean birthdayChanged = !Objects.equals(stored.getBirthday(), newCustomer.getBirthday());
+        boolean emailChanged = !Objects.equals(stored.getEmail(), newCustomer.getEmail());
+        boolean addressChanged = !Objects.equals(stored.getAddress(), newCustomer.getAddress());
+        return nameChanged || sexChanged || birthdayChanged || emailChanged || addressChanged;
     }
 
     /**
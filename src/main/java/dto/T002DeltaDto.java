@@ -0,0 +1,42 @@
+package dto;
+
+/**
+ * T002DeltaDto - a customer row returned by the delta (incremental) export.
+ *
+ * <p>Extends {@link T002Dto} with a tombstone flag so that downstream systems
+ * can tell a changed customer from a customer that has been soft-deleted
+ * since the previous export.</p>
+ *
+ * @author YourName
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class T002DeltaDto extends T002Dto {
+
+    /** True if this customer has been soft-deleted ({@code DELETE_YMD} is set). */
+    private boolean deleted;
+
+    /**
+     * Default constructor.
+     */
+    public T002DeltaDto() {
+    }
+
+    /**
+     * Checks whether this row is a tombstone for a soft-deleted customer.
+     *
+     * @return true if the customer has been deleted
+     */
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Sets whether this row is a tombstone for a soft-deleted customer.
+     *
+     * @param deleted true if the customer has been deleted
+     */
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+}
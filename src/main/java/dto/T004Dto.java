@@ -0,0 +1,105 @@
+package dto;
+
+/**
+ * T004Dto - a customer row read from an import file (T004).
+ *
+ * <p>Extends {@link T002Dto} with the position of the row in the file so that
+ * the import can report which lines were inserted or updated while rows are
+ * streamed to the database one at a time.</p>
+ *
+ * @author YourName
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class T004Dto extends T002Dto {
+
+    /** 1-based position of this row among the data rows of the file. */
+    private int rowNumber;
+
+    /** Physical line of the file on which this row starts, for error messages. */
+    private int lineNumber;
+
+    /** CUSTOMER_ID exactly as read from the file (empty for new customers). */
+    private String rawCustomerId;
+
+    /** Line of an earlier row this row repeats, or 0. */
+    private int duplicateOfLine;
+
+    /**
+     * Default constructor.
+     */
+    public T004Dto() {
+    }
+
+    /**
+     * Gets the position of this row among the data rows of the file.
+     *
+     * @return the 1-based row number
+     */
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * Sets the position of this row among the data rows of the file.
+     *
+     * @param rowNumber the 1-based row number
+     */
+    public void setRowNumber(int rowNumber) {
+        this.rowNumber = rowNumber;
+    }
+
+    /**
+     * Gets the physical line of the file on which this row starts.
+     *
+     * @return the 1-based line number
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Sets the physical line of the file on which this row starts.
+     *
+     * @param lineNumber the 1-based line number
+     */
+    public void setLineNumber(int lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Gets the CUSTOMER_ID text as read from the file.
+     *
+     * @return the raw customer ID, empty for new customers
+     */
+    public String getRawCustomerId() {
+        return rawCustomerId;
+    }
+
+    /**
+     * Sets the CUSTOMER_ID text as read from the file.
+     *
+     * @param rawCustomerId the raw customer ID
+     */
+    public void setRawCustomerId(String rawCustomerId) {
+        this.rawCustomerId = rawCustomerId;
+    }
+
+    /**
+     * Gets the line of an earlier row of the file that this row repeats.
+     *
+     * @return the 1-based line number, or 0 if the row is not a duplicate
+     */
+    public int getDuplicateOfLine() {
+        return duplicateOfLine;
+    }
+
+    /**
+     * Sets the line of an earlier row of the file that this row repeats.
+     *
+     * @param duplicateOfLine the 1-based line number
+     */
+    public void setDuplicateOfLine(int duplicateOfLine) {
+        this.duplicateOfLine = duplicateOfLine;
+    }
+}
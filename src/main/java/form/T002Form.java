@@ -1,8 +1,5 @@
 package form;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
@@ -15,6 +12,7 @@ import org.apache.struts.action.ActionMessage;
 import common.Constants;
 import dto.T002Dto;
 import utils.Helper;
+import utils.Validator;
 
 /**
  * Form bean for T002 screen.
@@ -48,6 +46,26 @@ public class T002Form extends ActionForm {
     /** End date of the birthday range (format: yyyy/MM/dd). */
     private String birthdayTo;
 
+    // =========================
+    // Delta export fields
+    // =========================
+
+    /** Lower bound of the delta export (format: yyyy/MM/dd HH:mm:ss). */
+    private String since;
+
+    /** Opaque watermark returned by the previous delta export. */
+    private String watermark;
+
+    /** ID of a generated export file to download. */
+    private String fileId;
+
+    // =========================
+    // Restore fields
+    // =========================
+
+    /** IDs of archived customers to restore, separated by commas or spaces. */
+    private String restoreIds;
+
     // =========================
     // Selected customers (bulk actions)
     // =========================
@@ -179,6 +197,38 @@ public class T002Form extends ActionForm {
         this.birthdayTo = birthdayTo;
     }
 
+    public String getSince() {
+        return since;
+    }
+
+    public void setSince(String since) {
+        this.since = since;
+    }
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(String watermark) {
+        this.watermark = watermark;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getRestoreIds() {
+        return restoreIds;
+    }
+
+    public void setRestoreIds(String restoreIds) {
+        this.restoreIds = restoreIds;
+    }
+
     public int[] getCustomerIds() {
         return customerIds;
     }
@@ -257,6 +307,10 @@ public class T002Form extends ActionForm {
     public void reset(ActionMapping mapping, HttpServletRequest request) {
        this.action = null ;
        this.customerIds = null ;
+       this.since = null ;
+       this.watermark = null ;
+       this.fileId = null ;
+       this.restoreIds = null ;
     }
 
     // =========================
@@ -271,6 +325,8 @@ public class T002Form extends ActionForm {
      *   <li>If action is "remove", at least one customer must be selected.</li>
      *   <li>If action is "search", birthday fields must follow yyyy/MM/dd format
      *       and the range must be valid.</li>
+     *   <li>If action is "exportDelta", a since-timestamp or a watermark must be given.</li>
+     *   <li>If action is "restore", at least one customer ID must be entered.</li>
      * </ul>
      * </p>
      *
@@ -294,6 +350,18 @@ public class T002Form extends ActionForm {
         else if (Constants.ACTION_SEARCH.equals(action)) {
             validateBirthday(errors);
         }
+        // Validate delta export action
+        else if (Constants.ACTION_EXPORT_DELTA.equals(action)) {
+            if (Helper.isEmpty(since) && Helper.isEmpty(watermark)) {
+                errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_DELTA_SINCE_REQUIRED));
+            }
+        }
+        // Validate restore action
+        else if (Constants.ACTION_RESTORE.equals(action)) {
+            if (Helper.isEmpty(restoreIds)) {
+                errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_RESTORE_IDS_REQUIRED));
+            }
+        }
         return errors;
     }
 
@@ -310,33 +378,31 @@ public class T002Form extends ActionForm {
      * @param errors the ActionErrors object to collect validation issues
      */
     private void validateBirthday(ActionErrors errors) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd");
-        try {
-            LocalDate from = null;
-            LocalDate to = null;
-
-            // Parse birthdayFrom if provided
-            if (!Helper.isEmpty(birthdayFrom)) {
-                from = LocalDate.parse(birthdayFrom.trim(), formatter);
-            }
+        int from = Validator.INVALID_DATE;
+        int to = Validator.INVALID_DATE;
 
-            // Parse birthdayTo if provided
-            if (!Helper.isEmpty(birthdayTo)) {
-                to = LocalDate.parse(birthdayTo.trim(), formatter);
+        // Parse birthdayFrom if provided
+        if (!Helper.isEmpty(birthdayFrom)) {
+            from = Validator.parseDate(birthdayFrom);
+            if (from == Validator.INVALID_DATE) {
+                errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_BIRTHDAY_FROM_FORMAT));
+                return;
             }
+        }
 
-            // Validate date range consistency
-            if (from != null && to != null && to.isBefore(from)) {
-                errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_BIRTHDAY_RANGE));
-            }
-        } catch (DateTimeParseException e) {
-            // Determine which field caused the error
-            if (e.getParsedString().equals(birthdayFrom)) {
-                errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_BIRTHDAY_FROM_FORMAT));
-            } else {
+        // Parse birthdayTo if provided
+        if (!Helper.isEmpty(birthdayTo)) {
+            to = Validator.parseDate(birthdayTo);
+            if (to == Validator.INVALID_DATE) {
                 errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_BIRTHDAY_TO_FORMAT));
+                return;
             }
         }
+
+        // Validate date range consistency (yyyyMMdd numbers sort like dates)
+        if (from != Validator.INVALID_DATE && to != Validator.INVALID_DATE && to < from) {
+            errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_BIRTHDAY_RANGE));
+        }
     }
 
 }
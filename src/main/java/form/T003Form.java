@@ -6,7 +6,7 @@ import org.apache.struts.action.ActionMapping;
 import org.apache.struts.action.ActionMessage;
 
 import common.Constants;
-import utils.Helper;
+import utils.Validator;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -90,12 +90,12 @@ public class T003Form extends ActionForm {
 		ActionErrors errors = new ActionErrors();
 		String action = request.getParameter(Constants.PARAM_ACTION);
 		if (Constants.ACTION_SAVE.equals(action)) {
-			 if (!Helper.isValidDate(birthday)) {
+			 if (!Validator.isValidDate(birthday)) {
 		            errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_BIRTHDAY_INVALID));
 		            return errors;
 		        }
 		        // Email validation
-		        if (!Helper.isValidEmail(email)) {
+		        if (!Validator.isValidEmail(email)) {
 		            errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_EMAIL_INVALID));
 		            return errors;
 		        }
@@ -1,7 +1,9 @@
 package form;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.util.zip.ZipException;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -12,6 +14,8 @@ import org.apache.struts.action.ActionMessage;
 import org.apache.struts.upload.FormFile;
 
 import common.Constants;
+import utils.DecompressionLimitException;
+import utils.UploadFormat;
 
 /**
  * Form bean for the T004 (Import CSV) screen.
@@ -32,9 +36,15 @@ public class T004Form extends ActionForm {
     /** The action to be executed (e.g., "import"). */
     private String action;
 
-    /** The uploaded CSV file (wrapped by Struts {@link FormFile}). */
+    /** The uploaded CSV file, possibly compressed (wrapped by Struts {@link FormFile}). */
     private FormFile uploadFile;
 
+    /** Whether to commit in chunks with checkpoint and resume. */
+    private boolean chunkedCommit;
+
+    /** ID of the import job to show or poll. */
+    private String jobId;
+
     /** @return the action parameter */
     public String getAction() {
         return action;
@@ -55,6 +65,26 @@ public class T004Form extends ActionForm {
         this.uploadFile = uploadFile;
     }
 
+    /** @return whether to commit in chunks */
+    public boolean isChunkedCommit() {
+        return chunkedCommit;
+    }
+
+    /** @param chunkedCommit whether to commit in chunks */
+    public void setChunkedCommit(boolean chunkedCommit) {
+        this.chunkedCommit = chunkedCommit;
+    }
+
+    /** @return the import job ID */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /** @param jobId the import job ID to set */
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
     /**
      * Resets the form fields before each request.
      *
@@ -65,16 +95,20 @@ public class T004Form extends ActionForm {
     public void reset(ActionMapping mapping, HttpServletRequest request) {
         this.action = null;
         this.uploadFile = null;
+        this.chunkedCommit = false; // unchecked boxes are not submitted
+        this.jobId = null;
     }
 
     /**
      * Validates the form input based on the current action.
      *
-     * <p>Specifically for the {@code import} action, this method checks:</p>
+     * <p>Specifically for the {@code import} and {@code dryRun} actions, this method checks:</p>
      * <ul>
      *   <li>File existence and non-empty size</li>
-     *   <li>File extension must be <b>.csv</b></li>
-     *   <li>File content must not be empty</li>
+     *   <li>File extension must be <b>.csv</b>, <b>.csv.gz</b> or <b>.zip</b></li>
+     *   <li>File content must not be empty (checked by streaming up to the
+     *       first non-blank byte, without loading the file into memory);
+     *       compressed files must be valid archives</li>
      * </ul>
      *
      * @param mapping the action mapping
@@ -86,38 +120,68 @@ public class T004Form extends ActionForm {
         ActionErrors errors = new ActionErrors();
         String action = getAction();
 
-        if (Constants.ACTION_IMPORT.equals(action)) {
+        if (Constants.ACTION_IMPORT.equals(action) || Constants.ACTION_DRY_RUN.equals(action)) {
             // 1. Check file existence
             if (uploadFile == null || uploadFile.getFileSize() == 0) {
                 errors.add("uploadFile", new ActionMessage(Constants.ERROR_IMPORT_NOT_EXISTED));
                 return errors;
             }
 
-            String fileName = uploadFile.getFileName();
-
-            // 2. Check file extension (.csv only)
-            if (fileName == null || !fileName.toLowerCase().endsWith(".csv")) {
+            // 2. Check file extension (.csv, .csv.gz or .zip)
+            UploadFormat format = UploadFormat.of(uploadFile.getFileName());
+            if (format == null) {
                 errors.add("uploadFile", new ActionMessage(Constants.ERROR_IMPORT_INVALID));
                 return errors;
             }
 
             // 3. Check file content is not empty
             try {
-                byte[] fileData = uploadFile.getFileData();
-                if (fileData == null || fileData.length == 0) {
-                    errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_EMPTY));
-                    return errors;
-                }
-
-                String content = new String(fileData, StandardCharsets.UTF_8).trim();
-                if (content.isEmpty()) {
+                if (!hasContent(uploadFile, format)) {
                     errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_EMPTY));
                     return errors;
                 }
+            } catch (DecompressionLimitException e) {
+                errors.add("uploadFile", new ActionMessage(Constants.ERROR_IMPORT_TOO_LARGE, e.getLimitBytes()));
+                return errors;
+            } catch (ZipException | EOFException e) {
+                // Corrupt or truncated archive
+                errors.add("uploadFile", new ActionMessage(Constants.ERROR_IMPORT_INVALID));
+                return errors;
             } catch (IOException e) {
                 throw new RuntimeException("Error while reading uploaded file", e);
             }
         }
         return errors;
     }
+
+    /**
+     * Checks whether the uploaded file contains anything besides whitespace.
+     * <p>
+     * Reads the multipart temp file as a stream and stops at the first byte
+     * that is not whitespace, so the check costs a few bytes of I/O for any
+     * real file instead of reading the whole upload into a byte array.
+     * Compressed files are expanded only up to that byte, under the same
+     * limits as the import.
+     * </p>
+     *
+     * @param file   the uploaded file
+     * @param format container format of the file
+     * @return true if a non-whitespace byte is found
+     * @throws IOException if the file cannot be read or is not a valid archive
+     */
+    private boolean hasContent(FormFile file, UploadFormat format) throws IOException {
+        try (InputStream in = format.open(file.getInputStream(), file.getFileSize())) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    // Same definition of whitespace as String.trim()
+                    if ((buffer[i] & 0xFF) > ' ') {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,143 @@
+package service;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import dao.CustomerArchiveDao;
+import utils.AppConfig;
+
+/**
+ * Service keeping soft-deleted customers out of {@code MSTCUSTOMER}.
+ * <p>
+ * Every {@code archive.intervalMinutes}, customers soft-deleted more than
+ * {@code archive.retentionDays} days ago are moved to
+ * {@code MSTCUSTOMER_ARCHIVE} in batches of {@code archive.batchRows}, with a
+ * pause of {@code archive.pauseMillis} between batches so the archiver never
+ * holds locks for long or competes with imports for the log. A run stops
+ * after {@code archive.maxRowsPerRun} rows; the next run continues. Archived
+ * customers can be brought back with {@link #restoreCustomers}, which the
+ * T002 screen calls with the IDs the user enters.
+ * </p>
+ */
+public class CustomerArchiveService {
+
+	/** Singleton instance */
+	private static final CustomerArchiveService instance = new CustomerArchiveService();
+
+	/** DAO moving rows to and from the archive */
+	private final CustomerArchiveDao archiveDao = CustomerArchiveDao.getInstance();
+
+	/** Whether the scheduled archiver runs at all */
+	private final boolean enabled = AppConfig.getInstance().getBoolean("archive.enabled", true);
+
+	/** Days a soft-deleted customer stays in the hot table */
+	private final int retentionDays = Math.max(1, AppConfig.getInstance().getInt("archive.retentionDays", 90));
+
+	/** Rows moved per statement */
+	private final int batchRows = Math.max(1, AppConfig.getInstance().getInt("archive.batchRows", 500));
+
+	/** Pause between batches */
+	private final long pauseMillis = Math.max(0, AppConfig.getInstance().getLong("archive.pauseMillis", 200));
+
+	/** Rows moved by one run at most */
+	private final int maxRowsPerRun = Math.max(1, AppConfig.getInstance().getInt("archive.maxRowsPerRun", 100000));
+
+	/** Minutes between runs */
+	private final long intervalMinutes = Math.max(1, AppConfig.getInstance().getLong("archive.intervalMinutes", 60));
+
+	/** Runs the archiver; created by {@link #start()} */
+	private ScheduledExecutorService scheduler;
+
+	/** Private constructor to enforce singleton pattern */
+	private CustomerArchiveService() {
+	}
+
+	/**
+	 * Returns the singleton instance of {@code CustomerArchiveService}.
+	 *
+	 * @return singleton instance
+	 */
+	public static CustomerArchiveService getInstance() {
+		return instance;
+	}
+
+    /**
+     * Schedules the archiver, unless {@code archive.enabled} is false. Called
+     * when the web application starts. The first run waits one interval, so
+     * startup is not slowed down.
+     */
+    public synchronized void start() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runScheduled, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the archiver. A batch in progress completes or fails as a whole.
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Moves eligible customers to the archive in throttled batches until none
+     * are left, {@code archive.maxRowsPerRun} is reached, or the thread is
+     * interrupted.
+     *
+     * @return the number of customers archived
+     * @throws SQLException if a batch fails; earlier batches stay archived
+     */
+    public int archiveNow() throws SQLException {
+        int archived = 0;
+        while (archived < maxRowsPerRun) {
+            int moved = archiveDao.archiveBatch(retentionDays, Math.min(batchRows, maxRowsPerRun - archived));
+            archived += moved;
+            if (moved < batchRows) {
+                break; // nothing left (or only rows locked by someone else)
+            }
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Restores archived customers as active customers.
+     *
+     * @param customerIds IDs of archived customers; others are ignored
+     * @param psnCd       personal code of the operator
+     * @return the number of customers restored
+     * @throws SQLException if the restore fails; nothing is restored then
+     */
+    public int restoreCustomers(int[] customerIds, Integer psnCd) throws SQLException {
+        return archiveDao.restoreCustomers(customerIds, psnCd);
+    }
+
+    /**
+     * Scheduled run. Failures are printed and retried at the next interval;
+     * an exception escaping here would cancel all later runs, so runtime
+     * exceptions are caught as well.
+     */
+    private void runScheduled() {
+        try {
+            archiveNow();
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package service;
+
+import dto.T004Dto;
+import utils.ContentHash;
+import utils.IntLongHashMap;
+import utils.LongIntHashMap;
+
+/**
+ * Finds repeated rows of an import file while it is streamed, so redundant
+ * writes never reach the database.
+ * <p>
+ * Two rows are duplicates when they carry the same CUSTOMER_ID, or when both
+ * are new rows (no CUSTOMER_ID) with exactly the same values. IDs are tracked
+ * in an {@link IntLongHashMap}; new rows by a 64-bit {@link ContentHash}
+ * fingerprint in a {@link LongIntHashMap}. What happens to duplicates depends
+ * on {@code import.duplicates.policy}:
+ * </p>
+ * <ul>
+ *   <li>{@code reject}: every repeat is a validation error pointing at the
+ *       first line.</li>
+ *   <li>{@code firstWins}: only the first row of each key is written.</li>
+ *   <li>{@code lastWins}: only the last row of each key is written.</li>
+ * </ul>
+ * <p>
+ * The validation pass calls {@link #track} for every row in file order; the
+ * write pass calls {@link #isWinner} with the same row numbers. Under
+ * {@code reject} the maps hold the first line number of each key, otherwise
+ * the winning row number. Not thread-safe: both passes run on the job thread.
+ * </p>
+ */
+class DuplicateFilter {
+
+    /** What to do with repeated rows */
+    enum Policy {
+        REJECT, FIRST_WINS, LAST_WINS;
+
+        /**
+         * Parses the configured policy, defaulting to {@link #LAST_WINS},
+         * which keeps the outcome of the previous row-by-row behaviour.
+         *
+         * @param value {@code reject}, {@code firstWins} or {@code lastWins}
+         * @return the policy
+         */
+        static Policy parse(String value) {
+            if ("reject".equalsIgnoreCase(value)) {
+                return REJECT;
+            }
+            if ("firstWins".equalsIgnoreCase(value)) {
+                return FIRST_WINS;
+            }
+            return LAST_WINS;
+        }
+    }
+
+    private final Policy policy;
+
+    /** CUSTOMER_ID to first line (reject) or winning row */
+    private final IntLongHashMap idRows = new IntLongHashMap(1024);
+
+    /** Fingerprint of a new row to first line (reject) or winning row */
+    private final LongIntHashMap newRowFingerprints = new LongIntHashMap(1024);
+
+    /** Rows dropped by {@link #isWinner} */
+    private int skippedRows;
+
+    DuplicateFilter(Policy policy) {
+        this.policy = policy;
+    }
+
+    Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Records a row of the validation pass. Under {@code reject}, a repeat
+     * gets the line of the first occurrence set as
+     * {@link T004Dto#setDuplicateOfLine(int)}.
+     *
+     * @param row       parsed row with its line number set
+     * @param rowNumber 1-based data row number, as the write pass will number it
+     */
+    void track(T004Dto row, int rowNumber) {
+        int customerId = parseId(row.getRawCustomerId());
+        if (customerId > 0) {
+            if (policy == Policy.REJECT) {
+                long firstLine = idRows.get(customerId, 0L);
+                if (firstLine != 0) {
+                    row.setDuplicateOfLine((int) firstLine);
+                } else {
+                    idRows.put(customerId, row.getLineNumber());
+                }
+            } else if (policy == Policy.LAST_WINS || !idRows.containsKey(customerId)) {
+                idRows.put(customerId, rowNumber);
+            }
+        } else if (row.getRawCustomerId().isEmpty()) {
+            long fingerprint = fingerprint(row);
+            if (policy == Policy.REJECT) {
+                int firstLine = newRowFingerprints.get(fingerprint, 0);
+                if (firstLine != 0) {
+                    row.setDuplicateOfLine(firstLine);
+                } else {
+                    newRowFingerprints.put(fingerprint, row.getLineNumber());
+                }
+            } else if (policy == Policy.LAST_WINS || !newRowFingerprints.containsKey(fingerprint)) {
+                newRowFingerprints.put(fingerprint, rowNumber);
+            }
+        }
+        // invalid IDs are reported by validation and never written
+    }
+
+    /**
+     * Decides whether a row of the write pass is written. Under
+     * {@code reject} a file with duplicates never gets here, so every row is.
+     *
+     * @param row       row of the write pass, CUSTOMER_ID parsed
+     * @param rowNumber its 1-based data row number
+     * @return false if another row with the same key wins
+     */
+    boolean isWinner(T004Dto row, int rowNumber) {
+        if (policy == Policy.REJECT) {
+            return true;
+        }
+        int winner = row.getCustomerID() != 0
+                ? (int) idRows.get(row.getCustomerID(), rowNumber)
+                : newRowFingerprints.get(fingerprint(row), rowNumber);
+        if (winner != rowNumber) {
+            skippedRows++;
+            return false;
+        }
+        return true;
+    }
+
+    /** @return the number of distinct new rows tracked so far */
+    int getDistinctNewRows() {
+        return newRowFingerprints.size();
+    }
+
+    /** @return the number of rows dropped as duplicates in the write pass */
+    int getSkippedRows() {
+        return skippedRows;
+    }
+
+    /**
+     * Fingerprints the values of a new row; 0 is remapped since the map
+     * reserves it.
+     *
+     * @param row the row
+     * @return non-zero fingerprint
+     */
+    private static long fingerprint(T004Dto row) {
+        long hash = ContentHash.of(row.getCustomerName(), row.getSex(), row.getBirthday(), row.getEmail(),
+                row.getAddress());
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Parses a raw CUSTOMER_ID the way the write pass does.
+     *
+     * @param raw ID as read from the file
+     * @return the ID, or 0 if empty or not a valid number
+     */
+    private static int parseId(String raw) {
+        if (raw.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(raw);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package service;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import org.apache.struts.action.ActionMessage;
+import org.apache.struts.action.ActionMessages;
+import org.apache.struts.util.MessageResources;
+
+import common.Constants;
+import utils.ExportFileStore;
+
+/**
+ * Collects the validation errors of one import with bounded memory.
+ * <p>
+ * Only the first {@code maxMessages} errors are kept as {@link ActionMessage}s
+ * for the import page. Every error, including those, is written as it arrives
+ * to a CSV file in {@link ExportFileStore}, so the full report can be
+ * downloaded however broken the input is. The file is created on the first
+ * error; a clean file leaves no report behind.
+ * </p>
+ * <p>
+ * Not thread-safe: errors are added by the job thread in line order.
+ * </p>
+ */
+class ImportErrorReport implements AutoCloseable {
+
+    /** Resource bundle the messages are resolved from, as {@code <html:errors/>} does */
+    private static final MessageResources RESOURCES = MessageResources.getMessageResources("MessageResource");
+
+    /** Errors kept for the page */
+    private final ActionMessages messages = new ActionMessages();
+
+    private final int maxMessages;
+
+    private int errorCount;
+
+    /** Report file and its writer, created on the first error */
+    private File file;
+    private Writer writer;
+
+    /**
+     * @param maxMessages number of errors kept in memory for the page
+     */
+    ImportErrorReport(int maxMessages) {
+        this.maxMessages = maxMessages;
+    }
+
+    /**
+     * Records the errors of a validated chunk.
+     *
+     * @param chunkErrors errors of a chunk, in line order
+     * @throws IOException if the report file cannot be written
+     */
+    void add(ActionMessages chunkErrors) throws IOException {
+        @SuppressWarnings("unchecked")
+        Iterator<ActionMessage> it = chunkErrors.get();
+        while (it.hasNext()) {
+            ActionMessage message = it.next();
+            if (++errorCount <= maxMessages) {
+                messages.add(Constants.GLOBAL, message);
+            }
+            writeLine(message);
+        }
+    }
+
+    /** @return the number of errors recorded */
+    int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Returns the errors for the page: the first {@code maxMessages}, followed
+     * by a note with the total when some were left out.
+     *
+     * @return the page messages
+     */
+    ActionMessages getMessages() {
+        ActionMessages page = new ActionMessages(messages);
+        if (errorCount > maxMessages) {
+            page.add(Constants.GLOBAL,
+                    new ActionMessage(Constants.ERROR_IMPORT_TRUNCATED, maxMessages, errorCount));
+        }
+        return page;
+    }
+
+    /** @return the report file, or null if there were no errors */
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Appends one error to the report file as {@code LINE_NO,ERROR}, the line
+     * number being the first message argument as in every import error.
+     *
+     * @param message the error
+     * @throws IOException if the report file cannot be written
+     */
+    private void writeLine(ActionMessage message) throws IOException {
+        if (writer == null) {
+            file = ExportFileStore.getInstance().createFile();
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+            writer.write("LINE_NO,ERROR\r\n");
+        }
+        Object[] values = message.getValues();
+        String text = RESOURCES.getMessage(message.getKey(), values);
+        writer.write(values != null && values.length > 0 ? String.valueOf(values[0]) : "");
+        writer.write(',');
+        writer.write(escapeCsv(text == null ? message.getKey() : text.trim()));
+        writer.write("\r\n");
+    }
+
+    /**
+     * Escapes a value for a CSV field: wraps it in quotes and doubles inner quotes.
+     *
+     * @param value the raw value
+     * @return the escaped value
+     */
+    private static String escapeCsv(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,87 @@
+package service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.struts.action.ActionMessages;
+
+/**
+ * Summaries of completed imports, keyed by the SHA-256 of the upload.
+ * <p>
+ * Each entry remembers the customer data version
+ * ({@link dao.T004Dao#getDataVersion()}) read inside the import transaction
+ * just before it committed.
+ * An identical upload is only answered from the history while the version is
+ * unchanged, i.e. nobody has written customers since: re-running it then
+ * could only repeat the same updates and insert its new rows a second time.
+ * </p>
+ * <p>
+ * The history is an in-memory LRU of {@code import.history.maxEntries}
+ * entries and is shared by all import threads.
+ * </p>
+ */
+class ImportHistory {
+
+    /** Summary of one completed import */
+    static final class Entry {
+
+        /** Customer data version the import committed with */
+        final long dataVersion;
+
+        /** Success messages shown for the import */
+        final ActionMessages messages;
+
+        final int rowsInserted;
+        final int rowsUpdated;
+
+        /** When the import finished */
+        final long finishedMillis;
+
+        Entry(long dataVersion, ActionMessages messages, int rowsInserted, int rowsUpdated, long finishedMillis) {
+            this.dataVersion = dataVersion;
+            this.messages = messages;
+            this.rowsInserted = rowsInserted;
+            this.rowsUpdated = rowsUpdated;
+            this.finishedMillis = finishedMillis;
+        }
+    }
+
+    /** Entries by upload hash, least recently used first */
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates an empty history.
+     *
+     * @param maxEntries number of imports remembered
+     */
+    ImportHistory(int maxEntries) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Looks up the last completed import of an upload.
+     *
+     * @param uploadHash SHA-256 of the upload, hex encoded
+     * @return the entry, or null if the upload is not remembered
+     */
+    synchronized Entry find(String uploadHash) {
+        return entries.get(uploadHash);
+    }
+
+    /**
+     * Records a completed import, replacing an earlier entry for the same upload.
+     *
+     * @param uploadHash SHA-256 of the upload, hex encoded
+     * @param entry      the import's summary
+     */
+    synchronized void record(String uploadHash, Entry entry) {
+        entries.put(uploadHash, entry);
+    }
+}
@@ -0,0 +1,199 @@
+package service;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.struts.action.ActionMessages;
+
+import utils.UploadFormat;
+
+/**
+ * State of one background customer import submitted through
+ * {@link T004Service#submitImport}.
+ * <p>
+ * The counters are written by the job thread (and, for validated rows, by the
+ * validation workers) and read by progress requests, so they are volatile or
+ * atomic. The final messages are published together with the terminal status.
+ * </p>
+ */
+public class ImportJob {
+
+    /** Life cycle of a job */
+    public enum Status {
+        /** Waiting for a free import thread */
+        QUEUED,
+        /** Reading and validating the file */
+        VALIDATING,
+        /** Writing valid rows to the database */
+        WRITING,
+        /** Finished; the messages hold the summary or the validation errors */
+        DONE,
+        /** Stopped by an unexpected error; the messages describe it */
+        FAILED
+    }
+
+    private final String jobId;
+    private final Integer psnCd;
+
+    /** Copy of the upload, deleted when the job ends */
+    private final File file;
+
+    /** Container format of the upload; the file is kept compressed */
+    private final UploadFormat format;
+
+    /** SHA-256 of the upload as uploaded, hex encoded */
+    private final String uploadHash;
+
+    private final boolean chunkedCommit;
+
+    /** Validate only; nothing is written */
+    private final boolean dryRun;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int rowsParsed;
+    private final AtomicInteger rowsValidated = new AtomicInteger();
+    private volatile int rowsWritten;
+    private volatile int rowsInserted;
+    private volatile int rowsUpdated;
+
+    /** Customer data version read just before the import committed, or null */
+    private volatile Long dataVersion;
+
+    /** Full validation error report, or null if the file had no errors */
+    private volatile File errorReport;
+
+    /** Summary or error messages, set once the job ends */
+    private volatile ActionMessages messages;
+
+    /** When the job ended, or 0 while it runs */
+    private volatile long finishedMillis;
+
+    ImportJob(String jobId, Integer psnCd, File file, UploadFormat format, String uploadHash,
+            boolean chunkedCommit, boolean dryRun) {
+        this.jobId = jobId;
+        this.psnCd = psnCd;
+        this.file = file;
+        this.format = format;
+        this.uploadHash = uploadHash;
+        this.chunkedCommit = chunkedCommit;
+        this.dryRun = dryRun;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Integer getPsnCd() {
+        return psnCd;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    UploadFormat getFormat() {
+        return format;
+    }
+
+    String getUploadHash() {
+        return uploadHash;
+    }
+
+    boolean isChunkedCommit() {
+        return chunkedCommit;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /** @return true once the job is DONE or FAILED */
+    public boolean isFinished() {
+        Status current = status;
+        return current == Status.DONE || current == Status.FAILED;
+    }
+
+    public long getFinishedMillis() {
+        return finishedMillis;
+    }
+
+    public int getRowsParsed() {
+        return rowsParsed;
+    }
+
+    void setRowsParsed(int rowsParsed) {
+        this.rowsParsed = rowsParsed;
+    }
+
+    public int getRowsValidated() {
+        return rowsValidated.get();
+    }
+
+    void addRowsValidated(int rows) {
+        rowsValidated.addAndGet(rows);
+    }
+
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    void setRowsWritten(int rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    public int getRowsInserted() {
+        return rowsInserted;
+    }
+
+    public int getRowsUpdated() {
+        return rowsUpdated;
+    }
+
+    void setResultCounts(int rowsInserted, int rowsUpdated) {
+        this.rowsInserted = rowsInserted;
+        this.rowsUpdated = rowsUpdated;
+    }
+
+    Long getDataVersion() {
+        return dataVersion;
+    }
+
+    void setDataVersion(Long dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    /** @return the CSV report of all validation errors, or null if there were none */
+    public File getErrorReport() {
+        return errorReport;
+    }
+
+    void setErrorReport(File errorReport) {
+        this.errorReport = errorReport;
+    }
+
+    /** @return the summary or error messages, or null while the job runs */
+    public ActionMessages getMessages() {
+        return messages;
+    }
+
+    /**
+     * Ends the job. The messages are published before the status, so a reader
+     * seeing a terminal status also sees them.
+     *
+     * @param status   DONE or FAILED
+     * @param messages summary or error messages
+     */
+    void finish(Status status, ActionMessages messages) {
+        this.messages = messages;
+        this.finishedMillis = System.currentTimeMillis();
+        this.status = status;
+    }
+}
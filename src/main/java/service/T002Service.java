@@ -1,18 +1,32 @@
 package service;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import common.Constants;
 import dao.T002Dao;
+import dto.T002DeltaDto;
 import dto.T002Dto;
 import dto.T002SCO;
+import form.ColumnHeader;
 import form.T002Form;
+import utils.Helper;
 
 /**
  * Service class for handling customer-related operations on the T002 screen.
@@ -25,11 +39,25 @@ public class T002Service {
     private final T002Dao t002Dao = T002Dao.getInstance();
     
     // CSV constants
-    private static final String CSV_HEADER = "\"Customer Id\",\"Customer Name\",\"Sex\",\"Birthday\",\"Email\",\"Address\"";
     private static final String CSV_FILE_PREFIX = "Customer_";
     private static final String CSV_FILE_EXTENSION = ".csv";
     private static final String CSV_DATE_FORMAT = "yyyyMMdd";
 
+    /** Version prefix of the opaque delta export watermark token. */
+    private static final String WATERMARK_VERSION = "v1:";
+
+    /** Exportable columns (header value → CSV header label), in default order. */
+    private static final Map<String, String> EXPORT_COLUMN_LABELS = new LinkedHashMap<>();
+
+    static {
+        EXPORT_COLUMN_LABELS.put(Constants.HEADER_CUSTOMER_ID, "Customer Id");
+        EXPORT_COLUMN_LABELS.put(Constants.HEADER_CUSTOMER_NAME, "Customer Name");
+        EXPORT_COLUMN_LABELS.put(Constants.HEADER_SEX, "Sex");
+        EXPORT_COLUMN_LABELS.put(Constants.HEADER_BIRTHDAY, "Birthday");
+        EXPORT_COLUMN_LABELS.put(Constants.HEADER_EMAIL, "Email");
+        EXPORT_COLUMN_LABELS.put(Constants.HEADER_ADDRESS, "Address");
+    }
+
     private T002Service() {}
 
     public static T002Service getInstance() {
@@ -103,69 +131,302 @@ public class T002Service {
      * @throws SQLException If a database access error occurs during deletion.
      */
     public void deleteCustomers(int[] customerIds) throws SQLException {
-        List<Integer> ids = Arrays.stream(customerIds).boxed().collect(Collectors.toList());
-        t002Dao.deleteCustomer(ids);
+        t002Dao.deleteCustomer(customerIds);
+    }
+
+    /**
+     * Deletes every customer matching the current search conditions on the
+     * server, without the IDs being selected in the browser.
+     *
+     * @param sco the search conditions of the current search
+     * @return the number of customers deleted
+     * @throws SQLException If a database access error occurs during deletion.
+     */
+    public int deleteMatchingCustomers(T002SCO sco) throws SQLException {
+        return t002Dao.deleteMatchingCustomers(sco);
+    }
+
+    /**
+     * Restores archived customers as active customers through the
+     * {@link CustomerArchiveService}. IDs that are not archived are ignored.
+     *
+     * @param customerIds IDs of archived customers
+     * @param psnCd       personal code of the operator
+     * @return the number of customers restored
+     * @throws SQLException If a database access error occurs; nothing is restored then.
+     */
+    public int restoreCustomers(int[] customerIds, Integer psnCd) throws SQLException {
+        return CustomerArchiveService.getInstance().restoreCustomers(customerIds, psnCd);
+    }
+
+    /**
+     * Parses the customer IDs entered for a restore.
+     * <p>
+     * IDs may be separated by commas, spaces or line breaks; each must be a
+     * positive number.
+     * </p>
+     *
+     * @param value the IDs entered by the user (may be empty)
+     * @return the IDs, or {@code null} if there are none or any is not a positive number
+     */
+    public int[] parseRestoreIds(String value) {
+        if (Helper.isEmpty(value)) {
+            return null;
+        }
+        String[] tokens = value.trim().split("[,\\s]+");
+        int[] customerIds = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            try {
+                customerIds[i] = Integer.parseInt(tokens[i]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (customerIds[i] <= 0) {
+                return null;
+            }
+        }
+        return customerIds;
     }
     
     /**
-     * Exports customer data to a CSV string based on search conditions.
+     * Exports customer data to a CSV file based on search conditions.
      * <p>
      * If the provided {@link T002SCO} object is null, it will be created from
-     * the form. Then all customers matching the search conditions are fetched
-     * and written into a CSV format with a UTF-8 BOM to ensure compatibility
-     * with applications like Excel.
+     * the form. Only the columns shown in the current T005 header layout are
+     * exported, in the same order: both the SQL projection and the CSV encoder
+     * are narrowed to those columns. Rows are encoded straight into the file in
+     * UTF-8 with a BOM to ensure compatibility with applications like Excel, so
+     * the finished file can be served (and resumed) without holding it in memory.
      * </p>
      *
-     * @param form The form containing search conditions.
-     * @param sco  The search condition object (can be null; will be created if so).
-     * @return A CSV-formatted string containing customer data.
+     * @param form    The form containing search conditions.
+     * @param sco     The search condition object (can be null; will be created if so).
+     * @param headers The right-hand column headers from the T005 layout.
+     * @param file    The file to write the CSV data to.
      * @throws SQLException If a database access error occurs while fetching customers.
+     * @throws IOException  If the file cannot be written.
      */
-    public String exportCustomersToCSV(T002Form form, T002SCO sco) throws SQLException {
+    public void exportCustomersToCSV(T002Form form, T002SCO sco, List<ColumnHeader> headers, File file)
+            throws SQLException, IOException {
         if (sco == null) {
             sco = createScoFromForm(form);
         }
-        List<T002Dto> customers = fetchAllCustomers(sco);
+        List<String> columns = resolveExportColumns(headers);
+        List<T002Dto> customers = t002Dao.exportCustomers(sco, columns);
+
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write('\ufeff'); // Add UTF-8 BOM for proper encoding in Excel
+            writer.write(buildHeaderRow(columns));
+            writer.write('\n');
+
+            for (T002Dto customer : customers) {
+                writer.write(buildCustomerRow(customer, columns));
+                writer.write('\n');
+            }
+        }
+    }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append('\ufeff'); // Add UTF-8 BOM for proper encoding in Excel
-        sb.append(CSV_HEADER).append("\n");
+    /**
+     * Exports the customers changed since the given point in time to a CSV file.
+     * <p>
+     * Every row changed at or after {@code since} is written with all columns and
+     * an extra {@code Deleted} column; soft-deleted customers appear as tombstones
+     * with {@code Deleted} set to {@code 1}. Like {@link #exportCustomersToCSV},
+     * rows are encoded straight into the file, so the download can be resumed.
+     * The returned watermark token should be passed back on the next call so
+     * that only later changes are exported.
+     * </p>
+     *
+     * @param since lower bound (inclusive) of the change timestamps
+     * @param file  the file to write the CSV data to
+     * @return opaque watermark token for the next call
+     * @throws SQLException If a database access error occurs while fetching customers.
+     * @throws IOException  If the file cannot be written.
+     */
+    public String exportChangedCustomersToCSV(Timestamp since, File file) throws SQLException, IOException {
+        Map<String, Object> data = t002Dao.findChangedCustomers(since);
+        List<String> columns = new ArrayList<>(EXPORT_COLUMN_LABELS.keySet());
+
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write('\ufeff'); // Add UTF-8 BOM for proper encoding in Excel
+            writer.write(buildHeaderRow(columns));
+            writer.write(",\"Deleted\"\n");
+
+            for (T002Dto customer : extractCustomersFromData(data)) {
+                boolean deleted = customer instanceof T002DeltaDto && ((T002DeltaDto) customer).isDeleted();
+                writer.write(buildCustomerRow(customer, columns));
+                writer.write(deleted ? ",\"1\"\n" : ",\"0\"\n");
+            }
+        }
+        return encodeWatermark((Timestamp) data.get("watermark"));
+    }
+
+    /**
+     * Resolves the lower bound of a delta export from a since-timestamp or a watermark.
+     * <p>
+     * The watermark token takes precedence when both are given. The since-timestamp
+     * accepts {@code yyyy/MM/dd HH:mm:ss} or a plain {@code yyyy/MM/dd} date.
+     * </p>
+     *
+     * @param since     since-timestamp entered by the user (may be empty)
+     * @param watermark watermark token from a previous delta export (may be empty)
+     * @return the lower bound, or {@code null} if neither value can be parsed
+     */
+    public Timestamp resolveDeltaSince(String since, String watermark) {
+        if (!Helper.isEmpty(watermark)) {
+            return decodeWatermark(watermark.trim());
+        }
+        if (Helper.isEmpty(since)) {
+            return null;
+        }
+        String value = since.trim();
+        String pattern = value.length() == Constants.DATE_PATTERN.length()
+                ? Constants.DATE_PATTERN : Constants.DELTA_SINCE_PATTERN;
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setLenient(false);
+        try {
+            return new Timestamp(format.parse(value).getTime());
+        } catch (ParseException e) {
+            return null;
+        }
+    }
 
-        for (T002Dto customer : customers) {
-            sb.append(buildCustomerRow(customer)).append("\n");
+    /**
+     * Encodes a watermark timestamp into an opaque, URL-safe token.
+     *
+     * @param watermark the database time captured before the delta query
+     * @return the watermark token
+     */
+    private String encodeWatermark(Timestamp watermark) {
+        String raw = WATERMARK_VERSION + watermark.getTime();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decodes a watermark token produced by {@link #encodeWatermark(Timestamp)}.
+     *
+     * @param token the watermark token
+     * @return the watermark timestamp, or {@code null} if the token is malformed
+     */
+    private Timestamp decodeWatermark(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(WATERMARK_VERSION)) {
+                return null;
+            }
+            return new Timestamp(Long.parseLong(raw.substring(WATERMARK_VERSION.length())));
+        } catch (IllegalArgumentException e) {
+            return null;
         }
+    }
 
+    /**
+     * Generates a delta CSV file name using the current date.
+     * <p>
+     * Example: "Customer_delta_20250909.csv"
+     * </p>
+     *
+     * @return A file name string for the delta export.
+     */
+    public String generateDeltaFileName() {
+        String dateString = new SimpleDateFormat(CSV_DATE_FORMAT).format(new Date());
+        return Constants.CSV_DELTA_FILE_PREFIX + dateString + CSV_FILE_EXTENSION;
+    }
+
+    /**
+     * Resolves the list of exportable columns from the T005 header layout.
+     * <p>
+     * Keeps the order of the right-hand headers and drops entries that are not
+     * data columns (such as the checkbox). Falls back to all columns when the
+     * layout is missing or contains no exportable column.
+     * </p>
+     *
+     * @param headers The right-hand column headers, may be {@code null}.
+     * @return Column header values to export, in display order.
+     */
+    private List<String> resolveExportColumns(List<ColumnHeader> headers) {
+        List<String> columns = new ArrayList<>();
+        if (headers != null) {
+            for (ColumnHeader header : headers) {
+                String value = header.getValue();
+                if (EXPORT_COLUMN_LABELS.containsKey(value) && !columns.contains(value)) {
+                    columns.add(value);
+                }
+            }
+        }
+        if (columns.isEmpty()) {
+            columns.addAll(EXPORT_COLUMN_LABELS.keySet());
+        }
+        return columns;
+    }
+
+    /**
+     * Builds the CSV header row for the selected columns.
+     *
+     * @param columns Column header values to export.
+     * @return The CSV header row.
+     */
+    private String buildHeaderRow(List<String> columns) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(EXPORT_COLUMN_LABELS.get(columns.get(i))).append('"');
+        }
         return sb.toString();
     }
 
     /**
      * Builds a single CSV row string from the given customer DTO.
      * <p>
-     * Each field is extracted from the {@link T002Dto} object and formatted
-     * according to CSV rules:
+     * Only the selected columns are encoded, formatted according to CSV rules:
      * <ul>
-     *   <li>Customer ID is converted to string.</li>
+     *   <li>Customer ID is wrapped in quotes.</li>
      *   <li>Text fields (name, sex, email, address) are escaped using
      *       {@link #escapeCsv(String)} to handle special characters.</li>
-     *   <li>Birthday is kept as-is (assumed to be preformatted).</li>
-     *   <li>Email and address are enclosed in proper CSV formatting.</li>
-     *   <li>Customer ID is wrapped in quotes and birthday is prefixed with
-     *       <code>=</code> to prevent Excel from misinterpreting the value.</li>
+     *   <li>Birthday is prefixed with <code>=</code> to prevent Excel from
+     *       misinterpreting the value.</li>
      * </ul>
      * </p>
      *
      * @param customer The customer DTO containing the data.
+     * @param columns  Column header values to export.
      * @return A CSV-formatted string representing one row of customer data.
      */
-    private String buildCustomerRow(T002Dto customer) {
-        String customerId = String.valueOf(customer.getCustomerID());
-        String customerName = escapeCsv(customer.getCustomerName());
-        String sex = escapeCsv(customer.getSex());
-        String birthday = customer.getBirthday();
-        String email = escapeCsv(customer.getEmail());
-        String address = escapeCsv(customer.getAddress());
-        return String.format("\"%s\",%s,%s,=\"%s\",%s,%s",
-                customerId, customerName, sex, birthday, email, address);
+    private String buildCustomerRow(T002Dto customer, List<String> columns) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            switch (columns.get(i)) {
+                case Constants.HEADER_CUSTOMER_ID:
+                    sb.append('"').append(customer.getCustomerID()).append('"');
+                    break;
+                case Constants.HEADER_CUSTOMER_NAME:
+                    sb.append(escapeCsv(customer.getCustomerName()));
+                    break;
+                case Constants.HEADER_SEX:
+                    sb.append(escapeCsv(customer.getSex()));
+                    break;
+                case Constants.HEADER_BIRTHDAY:
+                    sb.append("=\"").append(customer.getBirthday()).append('"');
+                    break;
+                case Constants.HEADER_EMAIL:
+                    sb.append(escapeCsv(customer.getEmail()));
+                    break;
+                case Constants.HEADER_ADDRESS:
+                    sb.append(escapeCsv(customer.getAddress()));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return sb.toString();
     }
 
     /**
@@ -348,24 +609,6 @@ public class T002Service {
         return sco;
     }
 
-    /**
-     * Fetches all customers that match the given search conditions.
-     * <p>
-     * Uses a very large limit (Integer.MAX_VALUE) to ensure all records
-     * are retrieved, typically for CSV export purposes.
-     * </p>
-     *
-     * @param sco The search condition object.
-     * @return A list of all matching customers.
-     * @throws SQLException if a database access error occurs.
-     */
-    private List<T002Dto> fetchAllCustomers(T002SCO sco) throws SQLException {
-        // Query DAO with offset 0 and maximum possible limit
-        Map<String, Object> data = t002Dao.searchCustomers(sco, 0, Integer.MAX_VALUE);
-        // Extract list of customers from result map
-        return extractCustomersFromData(data);
-    }
-
     /**
      * Generates a CSV file name using the current date.
      * <p>
@@ -1,38 +1,126 @@
 package service;
 
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 import org.apache.struts.action.ActionMessage;
 import org.apache.struts.action.ActionMessages;
 import org.apache.struts.upload.FormFile;
 
 import common.Constants;
+import dao.CustomerCache;
+import dao.CustomerIdIndex;
+import dao.PartialImportException;
 import dao.T004Dao;
-import dto.T002Dto;
-import utils.Helper;
+import dto.T004Dto;
+import utils.AppConfig;
+import utils.BatchFlusher;
+import utils.BatchStats;
+import utils.CsvTokenizer;
+import utils.DBUtils;
+import utils.DecompressionLimitException;
+import utils.UploadFormat;
+import utils.Validator;
 
 /**
  * Service class for handling customer import functionality (T004).
  * Responsibilities:
- *  - Read CSV file
- *  - Validate data line by line
+ *  - Run each import as a background job and report its progress
+ *  - Stream CSV file from the job's copy of the upload
+ *  - Tokenize and validate data record by record
  *  - Insert or update valid customers in database
  *  - Return success or error messages
  */
 public class T004Service {
 	
 	
+	/** Import statistics are written here for tuning */
+	private static final Logger LOGGER = Logger.getLogger(T004Service.class.getName());
+
 	/** Singleton instance of {@code T001Service} */
 	private static final T004Service instance = new T004Service();
 
 	/** DAO instance for accessing {@code MSTUSER} table */
 	private final T004Dao t004Dao = T004Dao.getInstance();
 
+	/** In-memory index of active customer IDs used by validation */
+	private final CustomerIdIndex customerIdIndex = CustomerIdIndex.getInstance();
+
+	/** Edit screen cache, cleared after every import write */
+	private final CustomerCache customerCache = CustomerCache.getInstance();
+
+	/** Files with at least this many data rows are written with a staging table and MERGE */
+	private final int mergeThresholdRows = AppConfig.getInstance().getInt("import.mergeThresholdRows", 5000);
+
+	/** Files with at least this many data rows are written over several connections; 0 disables it */
+	private final int parallelThresholdRows = AppConfig.getInstance().getInt("import.parallel.thresholdRows", 50000);
+
+	/** Connections writing concurrently in parallel mode */
+	private final int parallelConnections = AppConfig.getInstance().getInt("import.parallel.connections", 4);
+
+	/** Rows committed per transaction in chunked-commit mode */
+	private final int chunkRows = AppConfig.getInstance().getInt("import.chunkRows", 1000);
+
+	/** Rows handed to one validation task */
+	private final int validationChunkRows = Math.max(1, AppConfig.getInstance().getInt("import.validation.chunkRows", 1000));
+
+	/** Validation errors shown on the page; all of them go to the downloadable error report */
+	private final int maxErrorMessages = Math.max(1, AppConfig.getInstance().getInt("import.errors.maxMessages", 100));
+
+	/** What happens to repeated rows of an import file */
+	private final DuplicateFilter.Policy duplicatePolicy = DuplicateFilter.Policy.parse(
+			AppConfig.getInstance().getString("import.duplicates.policy", "lastWins"));
+
+	/** Worker pool for the validation pass, shared by all imports; 0 threads means one per core */
+	private final ForkJoinPool validationPool = new ForkJoinPool(resolveValidationThreads());
+
+	/** Runs import jobs; at most {@code import.jobs.threads} at once, further jobs wait in a bounded queue */
+	private final ThreadPoolExecutor jobExecutor = createJobExecutor();
+
+	/** Submitted jobs by ID; finished jobs are kept for {@code import.jobs.retentionMinutes} */
+	private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+	/** Running jobs by upload hash; an identical upload joins the running job */
+	private final Map<String, ImportJob> activeJobs = new ConcurrentHashMap<>();
+
+	/** Completed imports by upload hash, replayed for identical re-uploads */
+	private final ImportHistory importHistory = new ImportHistory(
+			Math.max(1, AppConfig.getInstance().getInt("import.history.maxEntries", 200)));
+
+	/** How long a finished job stays available to the progress and result requests */
+	private final long jobRetentionMillis = AppConfig.getInstance().getLong("import.jobs.retentionMinutes", 60) * 60_000L;
+
 	/** Private constructor to enforce singleton pattern */
 	private T004Service() {
 	}
@@ -47,133 +135,709 @@ public class T004Service {
 	}
 
     /**
-     * Imports customer data from uploaded CSV file.
-     * Steps:
-     * 1. Read CSV file with UTF-8 encoding
-     * 2. Process each line
-     * 3. Validate and collect valid customers
-     * 4. Save to database
-     * 5. Populate success or error messages
+     * Submits an import of the uploaded CSV file as a background job.
+     * <p>
+     * The upload is copied to a temp file first, since the multipart temp file
+     * is removed when the request ends. The job then runs {@link #importFile}
+     * on {@link #jobExecutor}, and the caller polls it through
+     * {@link #findJob(String)}.
+     * </p>
+     * <p>
+     * The upload is hashed while it is copied. If an identical upload is
+     * still being imported, its job is returned instead of starting another
+     * one; identical uploads of completed imports are handled by
+     * {@link #runJob}.
+     * </p>
+     *
+     * @param uploadFile    Uploaded CSV file ({@code .csv}, {@code .csv.gz} or {@code .zip})
+     * @param psnCd         Logged-in user's person code
+     * @param chunkedCommit true to commit in chunks with checkpoint and resume
+     * @return the submitted job, or the running job of an identical upload
+     * @throws IOException if the upload cannot be copied
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public ImportJob submitImport(FormFile uploadFile, Integer psnCd, boolean chunkedCommit) throws IOException {
+        return submit(uploadFile, psnCd, chunkedCommit, false);
+    }
+
+    /**
+     * Submits a dry run of the uploaded CSV file as a background job: the file
+     * is parsed and validated exactly like an import, with CUSTOMER_ID
+     * existence checked against the cached ID index, but nothing is written
+     * and no write transaction is opened. A clean file is read a second time
+     * to compare its rows with the stored customers on a read connection, and
+     * is answered with the number of customers the import would insert and
+     * update.
+     *
+     * @param uploadFile Uploaded CSV file ({@code .csv}, {@code .csv.gz} or {@code .zip})
+     * @param psnCd      Logged-in user's person code
+     * @return the submitted job
+     * @throws IOException if the upload cannot be copied
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public ImportJob submitDryRun(FormFile uploadFile, Integer psnCd) throws IOException {
+        return submit(uploadFile, psnCd, false, true);
+    }
+
+    /**
+     * Copies the upload and queues its job.
+     *
+     * @param uploadFile    Uploaded CSV file
+     * @param psnCd         Logged-in user's person code
+     * @param chunkedCommit true to commit in chunks with checkpoint and resume
+     * @param dryRun        true to validate only
+     * @return the submitted job, or the running import of an identical upload
+     * @throws IOException if the upload cannot be copied
+     */
+    private ImportJob submit(FormFile uploadFile, Integer psnCd, boolean chunkedCommit, boolean dryRun)
+            throws IOException {
+        purgeFinishedJobs();
+
+        // Compressed uploads are stored as uploaded and expanded while streaming
+        UploadFormat format = UploadFormat.of(uploadFile.getFileName());
+        File file = Files.createTempFile("customer-import-", format.getSuffix()).toFile();
+        MessageDigest digest = newSha256();
+        try (InputStream in = new DigestInputStream(uploadFile.getInputStream(), digest)) {
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), psnCd, file, format,
+                HexFormat.of().formatHex(digest.digest()), chunkedCommit, dryRun);
+        // Dry runs never stand in for an import, nor the other way round
+        ImportJob running = dryRun ? null : activeJobs.putIfAbsent(job.getUploadHash(), job);
+        if (running != null) {
+            file.delete(); // same file uploaded again while the first is still importing
+            return running;
+        }
+        jobs.put(job.getJobId(), job);
+        try {
+            jobExecutor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            activeJobs.remove(job.getUploadHash(), job);
+            file.delete();
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Looks up a submitted job.
+     *
+     * @param jobId the job ID
+     * @return the job, or null if it is unknown or expired
+     */
+    public ImportJob findJob(String jobId) {
+        return jobId == null ? null : jobs.get(jobId);
+    }
+
+    /**
+     * Stops the import threads and the validation pool. Called when the web
+     * application is undeployed; running imports are interrupted and their
+     * transactions rolled back by the DAO.
+     */
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        validationPool.shutdownNow();
+    }
+
+    /**
+     * Runs one import job on an import thread and publishes its outcome.
+     * Unexpected failures end the job as FAILED with the error message, where
+     * the synchronous import used to surface them as an error page.
+     * <p>
+     * If the same upload was imported before and no customer has been
+     * written since, the earlier summary is shown without reading the file.
+     * Otherwise a successful import is recorded in {@link #importHistory}.
+     * </p>
+     *
+     * @param job the job
+     */
+    private void runJob(ImportJob job) {
+        try {
+            ActionMessages previous = job.isDryRun() ? null : replayPreviousImport(job);
+            if (previous != null) {
+                job.finish(ImportJob.Status.DONE, previous);
+                return;
+            }
+            ActionMessages successMessages = new ActionMessages();
+            ActionMessages errors = importFile(job, successMessages);
+            if (errors.isEmpty() && !job.isDryRun()) {
+                recordCompletedImport(job, successMessages);
+            }
+            job.finish(ImportJob.Status.DONE, errors.isEmpty() ? successMessages : errors);
+        } catch (DecompressionLimitException e) {
+            ActionMessages errors = new ActionMessages();
+            errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_TOO_LARGE, e.getLimitBytes()));
+            job.finish(ImportJob.Status.FAILED, errors);
+        } catch (Exception e) {
+            ActionMessages errors = new ActionMessages();
+            errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_EXCEPTION, e.getMessage()));
+            job.finish(ImportJob.Status.FAILED, errors);
+        } finally {
+            activeJobs.remove(job.getUploadHash(), job);
+            job.getFile().delete();
+        }
+    }
+
+    /**
+     * Answers an identical re-upload from {@link #importHistory} while the
+     * customer data version is the one recorded after the earlier import.
+     *
+     * @param job the job
+     * @return the earlier summary headed by a notice, or null to import the file
+     * @throws SQLException if the data version cannot be read
+     */
+    private ActionMessages replayPreviousImport(ImportJob job) throws SQLException {
+        ImportHistory.Entry previous = importHistory.find(job.getUploadHash());
+        if (previous == null || previous.dataVersion != t004Dao.getDataVersion()) {
+            return null;
+        }
+        ActionMessages messages = new ActionMessages();
+        messages.add(ActionMessages.GLOBAL_MESSAGE, new ActionMessage(Constants.SUCCESS_IMPORT_ALREADY_IMPORTED,
+                new SimpleDateFormat(Constants.DELTA_SINCE_PATTERN).format(new Date(previous.finishedMillis))));
+        messages.add(previous.messages);
+        job.setResultCounts(previous.rowsInserted, previous.rowsUpdated);
+        return messages;
+    }
+
+    /**
+     * Records a successful import with the data version it left behind. The
+     * version is read inside the import transaction just before its commit,
+     * so a customer written by someone else right after the commit moves the
+     * version on and an identical upload is imported again over that change.
      *
-     * @param uploadFile      Uploaded CSV file
-     * @param psnCd           Logged-in user's person code
+     * @param job             the finished job
+     * @param successMessages the import's summary
+     */
+    private void recordCompletedImport(ImportJob job, ActionMessages successMessages) {
+        if (job.getDataVersion() != null) {
+            importHistory.record(job.getUploadHash(), new ImportHistory.Entry(job.getDataVersion(),
+                    successMessages, job.getRowsInserted(), job.getRowsUpdated(), System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Creates a SHA-256 digest.
+     *
+     * @return the digest
+     */
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // required of every JVM
+        }
+    }
+
+    /**
+     * Drops jobs that finished longer than {@code import.jobs.retentionMinutes} ago.
+     */
+    private void purgeFinishedJobs() {
+        long expiry = System.currentTimeMillis() - jobRetentionMillis;
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedMillis() < expiry);
+    }
+
+    /**
+     * Creates the bounded executor running import jobs from
+     * {@code import.jobs.threads} and {@code import.jobs.queueCapacity}.
+     * Its threads are daemons, so a missed shutdown does not hang the container.
+     *
+     * @return the executor
+     */
+    private static ThreadPoolExecutor createJobExecutor() {
+        AppConfig config = AppConfig.getInstance();
+        int threads = Math.max(1, config.getInt("import.jobs.threads", 2));
+        int queueCapacity = Math.max(1, config.getInt("import.jobs.queueCapacity", 10));
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "customer-import");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Imports customer data from the job's copy of the uploaded CSV file.
+     * <p>
+     * The file is streamed twice, so heap use does not depend on the upload
+     * size:
+     * </p>
+     * <ol>
+     *   <li>Validation pass: every line is parsed and validated. Only the
+     *       first {@code import.errors.maxMessages} errors are kept for the
+     *       page; all of them are streamed to a CSV error report that the job
+     *       offers for download.</li>
+     *   <li>Write pass (only if the file is clean): lines are parsed again and
+     *       handed one at a time to the DAO, which writes them in bounded batches
+     *       inside a single transaction. Files with at least
+     *       {@code import.mergeThresholdRows} data rows are bulk-loaded into a
+     *       staging table and applied with one {@code MERGE} instead. Files
+     *       with at least {@code import.parallel.thresholdRows} are split into
+     *       partitions written over {@code import.parallel.connections}
+     *       connections at once; if the partitions could only be partly
+     *       committed, the saved and unsaved lines are reported as errors.</li>
+     * </ol>
+     * <p>
+     * With {@code chunkedCommit} the write pass commits every
+     * {@code import.chunkRows} rows instead and records a checkpoint under the
+     * SHA-256 of the file (computed during the validation pass). If a chunk
+     * fails, the rows before it stay saved and uploading the same file again
+     * resumes after the last saved row.
+     * </p>
+     * <p>
+     * Repeated rows are handled by a {@link DuplicateFilter} filled during the
+     * validation pass: they are either validation errors or skipped by the
+     * write pass, depending on {@code import.duplicates.policy}.
+     * </p>
+     * <p>
+     * The job's status and counters are updated as the passes progress.
+     * </p>
+     *
+     * @param job             the import job
      * @param successMessages ActionMessages to store success messages
      * @return ActionMessages containing errors if any
      * @throws Exception if reading file or database operations fail
      */
-    public ActionMessages importFile(FormFile uploadFile, Integer psnCd, ActionMessages successMessages) throws Exception {
-        ActionMessages errors = new ActionMessages(); // Store validation errors
-        List<T002Dto> validCustomers = new ArrayList<>(); // Store valid customer DTOs
+    private ActionMessages importFile(ImportJob job, ActionMessages successMessages) throws Exception {
+        ActionMessages errors = new ActionMessages(); // Store write errors
+
+        // Pass 1: validate the whole file without keeping rows in memory
+        job.setStatus(ImportJob.Status.VALIDATING);
+        MessageDigest digest = job.isChunkedCommit() && !job.isDryRun() ? newSha256() : null;
+        int rowCount;
+        ImportErrorReport report = new ImportErrorReport(maxErrorMessages);
+        DuplicateFilter duplicates = new DuplicateFilter(duplicatePolicy);
+        try (Reader reader = openReader(job, digest)) {
+            rowCount = processCsvFile(new CsvTokenizer(reader), report, duplicates, job);
+        } finally {
+            report.close();
+        }
 
-        // Read CSV file with UTF-8 encoding
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(uploadFile.getInputStream(), "UTF-8"))) {
-            processCsvFile(reader, errors, validCustomers);
+        if (report.getErrorCount() > 0) {
+            job.setErrorReport(report.getFile());
+            ActionMessages messages = report.getMessages();
+            if (job.isDryRun()) {
+                ActionMessages dryRunErrors = new ActionMessages();
+                dryRunErrors.add(Constants.GLOBAL,
+                        new ActionMessage(Constants.ERROR_IMPORT_DRY_RUN, report.getErrorCount()));
+                dryRunErrors.add(messages);
+                return dryRunErrors;
+            }
+            return messages; // Return errors if any
         }
 
-        if (!errors.isEmpty()) {
-            return errors; // Return errors if any
+        if (job.isDryRun()) {
+            // One insert per distinct new row; updates only where the stored values differ
+            int changed;
+            try (Reader reader = openReader(job, null)) {
+                changed = t004Dao.countChangedCustomers(
+                        new CsvCustomerIterator(new CsvTokenizer(reader), duplicates, job));
+            }
+            job.setResultCounts(duplicates.getDistinctNewRows(), changed);
+            successMessages.add(ActionMessages.GLOBAL_MESSAGE, new ActionMessage(Constants.SUCCESS_IMPORT_DRY_RUN,
+                    duplicates.getDistinctNewRows(), changed));
+            return errors;
         }
 
-        // Insert/update valid data and populate success messages
-        handleImportResults(successMessages, validCustomers, psnCd);
-        return errors; // Empty if successful
+        job.setStatus(ImportJob.Status.WRITING);
+        try {
+            if (job.isChunkedCommit()) {
+                importChunked(job, HexFormat.of().formatHex(digest.digest()), duplicates, successMessages, errors);
+                addSkippedMessage(successMessages, duplicates);
+                return errors;
+            }
+
+            // Pass 2: stream valid rows to the database and populate success messages
+            try (Reader reader = openReader(job, null)) {
+                Iterator<T004Dto> customers = new CsvCustomerIterator(new CsvTokenizer(reader), duplicates, job);
+                if (parallelThresholdRows > 0 && parallelConnections > 1 && rowCount >= parallelThresholdRows) {
+                    importParallel(customers, job, successMessages, errors);
+                } else {
+                    handleImportResults(successMessages, customers, job, rowCount >= mergeThresholdRows);
+                }
+            }
+            addSkippedMessage(successMessages, duplicates);
+            return errors; // Empty if successful
+        } finally {
+            // Any number of customers may have changed, even if the write failed part way
+            customerCache.clear();
+            logImportStats(job);
+        }
     }
 
     /**
-     * Processes CSV file line by line.
-     * Skips the header line and empty lines automatically.
-     * Each valid line is parsed, validated, and added to validCustomers.
+     * Logs the JDBC batch counters after an import's write pass, so the
+     * {@code import.batch.*} bounds can be tuned from real imports, together
+     * with the lock waits of read connections, which show whether searches
+     * and exports queued behind the import. Both are cumulative since startup.
      *
-     * @param reader         BufferedReader for CSV file
-     * @param errors         ActionMessages to store validation errors
-     * @param validCustomers List to store valid customer DTOs
+     * @param job the import job
+     */
+    private void logImportStats(ImportJob job) {
+        for (Map.Entry<String, BatchStats> entry : BatchFlusher.getStats().entrySet()) {
+            LOGGER.info("Import " + job.getJobId() + " finished; batch statistics of "
+                    + entry.getKey() + ": " + entry.getValue());
+        }
+        LOGGER.info("Import " + job.getJobId() + " finished; read connections: "
+                + DBUtils.getInstance().getReadStats());
+    }
+
+    /**
+     * Reports how many duplicate rows the write pass skipped, if any.
+     *
+     * @param successMessages ActionMessages to store the message
+     * @param duplicates      filter used by the write pass
+     */
+    private void addSkippedMessage(ActionMessages successMessages, DuplicateFilter duplicates) {
+        if (duplicates.getSkippedRows() > 0) {
+            successMessages.add(ActionMessages.GLOBAL_MESSAGE,
+                    new ActionMessage(Constants.SUCCESS_IMPORT_DUPLICATES_SKIPPED, duplicates.getSkippedRows()));
+        }
+    }
+
+    /**
+     * Writes a validated file in chunked-commit mode, resuming after the
+     * checkpoint of an earlier attempt if there is one.
+     *
+     * @param job             the import job
+     * @param fileHash        SHA-256 of the file, hex encoded
+     * @param duplicates      filter deciding which repeated rows are written
+     * @param successMessages ActionMessages to store success messages
+     * @param errors          ActionMessages to store the failure, if any
+     * @throws Exception if reading the file or the checkpoint fails
+     */
+    private void importChunked(ImportJob job, String fileHash, DuplicateFilter duplicates,
+            ActionMessages successMessages, ActionMessages errors) throws Exception {
+        int resumeAfterRow = t004Dao.findCheckpoint(fileHash);
+        try (Reader reader = openReader(job, null)) {
+            Map<String, Object> result = t004Dao.importCustomerDataChunked(
+                    new CsvCustomerIterator(new CsvTokenizer(reader), duplicates, job), job.getPsnCd(), fileHash, chunkRows,
+                    resumeAfterRow);
+            if (resumeAfterRow > 0) {
+                successMessages.add(ActionMessages.GLOBAL_MESSAGE,
+                        new ActionMessage(Constants.SUCCESS_IMPORT_RESUMED, resumeAfterRow));
+            }
+            addResultMessages(successMessages, result, job);
+        } catch (SQLException e) {
+            // Earlier chunks are committed; report where a re-upload will resume
+            errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_CHUNK_FAILED,
+                    t004Dao.findCheckpoint(fileHash), e.getMessage()));
+        }
+    }
+
+    /**
+     * Writes a validated file over several connections. When only some
+     * partitions could be committed, the saved lines are listed next to the
+     * lines that were not saved, so the operator knows what to upload again.
+     *
+     * @param customers       Stream of valid customer DTOs
+     * @param job             the import job
+     * @param successMessages ActionMessages to store success messages
+     * @param errors          ActionMessages to store the partial-success report
+     * @throws Exception if database operations fail and nothing was saved
+     */
+    private void importParallel(Iterator<T004Dto> customers, ImportJob job, ActionMessages successMessages,
+            ActionMessages errors) throws Exception {
+        try {
+            addResultMessages(successMessages,
+                    t004Dao.importCustomerDataParallel(customers, job.getPsnCd(), parallelConnections), job);
+        } catch (PartialImportException e) {
+            job.setResultCounts(e.getInsertedRows().size(), e.getUpdatedRows().size());
+            errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_PARTIAL, e.getMessage()));
+            errors.add(Constants.GLOBAL, new ActionMessage(Constants.SUCCESS_IMPORT_INSERTED,
+                    e.getInsertedRows().isEmpty() ? "None" : joinInserted(e.getInsertedRows(), e.getInsertedIds())));
+            errors.add(Constants.GLOBAL, new ActionMessage(Constants.SUCCESS_IMPORT_UPDATED,
+                    e.getUpdatedRows().isEmpty() ? "None" : joinIntegers(e.getUpdatedRows())));
+            errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_NOT_SAVED,
+                    joinIntegers(e.getNotSavedRows())));
+        }
+    }
+
+    /**
+     * Opens the job's copy of the upload as a UTF-8 character stream.
+     * The tokenizer buffers its own input, so no {@code BufferedReader} is needed.
+     * Compressed uploads are expanded on the fly under the limits of
+     * {@link UploadFormat}; the digest sees the expanded CSV, so a file
+     * resumes the same checkpoint whether it is uploaded compressed or not.
+     *
+     * @param job    the import job, holding the copy of the upload and its format
+     * @param digest digest updated with the CSV bytes as they are read, or null
+     * @return a reader over the CSV content
+     * @throws IOException if the file cannot be opened or is not a valid archive
+     */
+    private Reader openReader(ImportJob job, MessageDigest digest) throws IOException {
+        File file = job.getFile();
+        InputStream in = job.getFormat().open(Files.newInputStream(file.toPath()), file.length());
+        if (digest != null) {
+            in = new DigestInputStream(in, digest);
+        }
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Resolves the size of the validation pool from {@code import.validation.threads}.
+     *
+     * @return number of worker threads
+     */
+    private static int resolveValidationThreads() {
+        int threads = AppConfig.getInstance().getInt("import.validation.threads", 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Validates the CSV file record by record.
+     * Skips the header record and empty lines automatically.
+     * <p>
+     * Tokenizing stays on the job thread; parsed rows are handed in chunks
+     * of {@code import.validation.chunkRows} to {@link #validationPool}.
+     * Chunk results are merged in submission order, so the messages come out
+     * in line order exactly as a sequential pass would produce them. At most
+     * two chunks per worker are in flight, which bounds memory.
+     * </p>
+     *
+     * @param tokenizer Tokenizer over the CSV file
+     * @param errors     report receiving the validation errors
+     * @param duplicates filter recording every row, in file order
+     * @param job        job whose parsed and validated counters are updated
+     * @return number of data rows in the file
      * @throws Exception if reading file or processing fails
      */
-    private void processCsvFile(BufferedReader reader, ActionMessages errors, List<T002Dto> validCustomers)
-            throws Exception {
-        String line;
-        int lineNumber = 0;
-
-        // Read each line from CSV
-        while ((line = reader.readLine()) != null) {
-            lineNumber++;
-            // Skip the first line (header) or empty lines
-            if (lineNumber == 1 || line.trim().isEmpty()) {
-                continue; // Move to next line
+    private int processCsvFile(CsvTokenizer tokenizer, ImportErrorReport errors, DuplicateFilter duplicates,
+            ImportJob job) throws Exception {
+        int rowCount = 0;
+        int maxInFlight = validationPool.getParallelism() * 2;
+        Deque<Future<ActionMessages>> inFlight = new ArrayDeque<>();
+        List<T004Dto> chunk = new ArrayList<>(validationChunkRows);
+
+        try {
+            // Read each record from CSV
+            while (tokenizer.nextRecord()) {
+                // Skip the first record (header) or empty lines
+                if (tokenizer.getRecordNumber() == 1 || tokenizer.isBlankRecord()) {
+                    continue; // Move to next record
+                }
+                T004Dto dto = toCustomerDto(tokenizer);
+                dto.setLineNumber(tokenizer.getLineNumber());
+                duplicates.track(dto, ++rowCount); // before the row is handed to a worker
+                chunk.add(dto);
+                job.setRowsParsed(rowCount);
+
+                if (chunk.size() == validationChunkRows) {
+                    List<T004Dto> rows = chunk;
+                    inFlight.add(validationPool.submit(() -> validateRows(rows, job)));
+                    chunk = new ArrayList<>(validationChunkRows);
+                    // Merge the oldest chunk once enough work is queued
+                    if (inFlight.size() >= maxInFlight) {
+                        errors.add(awaitChunk(inFlight.poll()));
+                    }
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                if (inFlight.isEmpty()) {
+                    errors.add(validateRows(chunk, job)); // small file: no hand-off needed
+                } else {
+                    List<T004Dto> rows = chunk;
+                    inFlight.add(validationPool.submit(() -> validateRows(rows, job)));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                errors.add(awaitChunk(inFlight.poll()));
+            }
+        } finally {
+            // Only non-empty after a failure; stop work nobody will read
+            for (Future<ActionMessages> pending : inFlight) {
+                pending.cancel(true);
             }
-            // Process the current CSV line: parse, validate, and add to validCustomers
-            processCsvLine(line, lineNumber, errors, validCustomers);
         }
+        return rowCount;
     }
 
     /**
-     * Processes a single CSV line: parses, validates, and adds valid DTOs.
+     * Validates a chunk of rows. Runs on a validation worker.
      *
-     * @param line           CSV line content
-     * @param lineNumber     Current line number
-     * @param errors         ActionMessages to collect errors
-     * @param validCustomers List to collect valid customer DTOs
+     * @param rows parsed rows, in file order
+     * @param job  job whose validated counter is updated
+     * @return the rows' validation errors, in line order
      * @throws SQLException if database validation fails
      */
-    private void processCsvLine(String line, int lineNumber, ActionMessages errors, List<T002Dto> validCustomers)
-            throws SQLException {
-        String[] values = parseCsvLine(line);
-
-        // Trim and extract each field
-        String customerIdStr = values[0].trim();
-        String customerName = values[1].trim();
-        String sex = values[2].trim();
-        String birthday = values[3].trim().replaceFirst("^=", ""); // Remove = at start if Excel format
-        String email = values[4].trim();
-        String address = values[5].trim();
-
-        // Validate current line
-        ActionMessages lineErrors = validateCustomerData(customerIdStr, customerName, sex, birthday, email, address,
-                lineNumber);
-
-        if (lineErrors.isEmpty()) {
-            // Create DTO for valid customer
-            T002Dto dto = new T002Dto();
-            dto.setCustomerID(customerIdStr.isEmpty() ? 0 : Integer.parseInt(customerIdStr));
-            dto.setCustomerName(customerName);
-            dto.setSex(sex);
-            dto.setBirthday(birthday);
-            dto.setEmail(email);
-            dto.setAddress(address);
-
-            validCustomers.add(dto); // Add to valid list
-        } else {
-            errors.add(lineErrors); // Add errors
+    private ActionMessages validateRows(List<T004Dto> rows, ImportJob job) throws SQLException {
+        ActionMessages chunkErrors = new ActionMessages();
+        for (T004Dto dto : rows) {
+            ActionMessages lineErrors = validateCustomerData(dto.getRawCustomerId(), dto.getCustomerName(),
+                    dto.getSex(), dto.getBirthday(), dto.getEmail(), dto.getAddress(), dto.getLineNumber());
+            if (dto.getDuplicateOfLine() > 0) {
+                lineErrors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_DUPLICATE,
+                        dto.getLineNumber(), dto.getDuplicateOfLine()));
+            }
+            if (!lineErrors.isEmpty()) {
+                chunkErrors.add(lineErrors); // Add errors
+            }
         }
+        job.addRowsValidated(rows.size());
+        return chunkErrors;
+    }
+
+    /**
+     * Waits for a validation chunk and returns its errors, rethrowing the
+     * task's own exception if it failed.
+     *
+     * @param future the submitted chunk
+     * @return the chunk's validation errors
+     * @throws Exception the exception thrown by the validation task
+     */
+    private ActionMessages awaitChunk(Future<ActionMessages> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * Builds a customer DTO from the fields of the current record.
+     * Missing trailing fields are read as empty values.
+     *
+     * @param tokenizer Tokenizer positioned on the record
+     * @return DTO holding the trimmed field values
+     */
+    private T004Dto toCustomerDto(CsvTokenizer tokenizer) {
+        T004Dto dto = new T004Dto();
+        dto.setRawCustomerId(tokenizer.getTrimmedString(0));
+        dto.setCustomerName(tokenizer.getTrimmedString(1));
+        dto.setSex(tokenizer.getTrimmedString(2));
+        String birthday = tokenizer.getTrimmedString(3);
+        // Remove = at start if Excel format (the quoted ="..." form is handled by the tokenizer)
+        dto.setBirthday(birthday.startsWith("=") ? birthday.substring(1) : birthday);
+        dto.setEmail(tokenizer.getTrimmedString(4));
+        dto.setAddress(tokenizer.getTrimmedString(5));
+        return dto;
     }
 
     /**
      * Handles database insert/update and populates success messages.
      *
-     * @param messages       ActionMessages to store success messages
-     * @param validCustomers List of valid customer DTOs
-     * @param psnCd          Logged-in user's person code
+     * @param messages  ActionMessages to store success messages
+     * @param customers Stream of valid customer DTOs
+     * @param job       the import job
+     * @param merge     true to write through a staging table and MERGE
      * @throws Exception if database operations fail
      */
-    private void handleImportResults(ActionMessages messages, List<T002Dto> validCustomers, Integer psnCd)
-            throws Exception {
-        Map<String, List<Integer>> result = t004Dao.importCustomerData(validCustomers, psnCd);
+    private void handleImportResults(ActionMessages messages, Iterator<T004Dto> customers, ImportJob job,
+            boolean merge) throws Exception {
+        Map<String, Object> result = merge
+                ? t004Dao.mergeCustomerData(customers, job.getPsnCd())
+                : t004Dao.importCustomerData(customers, job.getPsnCd());
+        addResultMessages(messages, result, job);
+    }
+
+    /**
+     * Adds the completion, inserted and updated line messages for an import
+     * result and records the counts and data version on the job.
+     *
+     * @param messages ActionMessages to store success messages
+     * @param result   DAO result with "inserted" and "updated" row numbers and the "dataVersion"
+     * @param job      the import job
+     */
+    @SuppressWarnings("unchecked")
+    private void addResultMessages(ActionMessages messages, Map<String, Object> result, ImportJob job) {
 
-        List<Integer> insertedLines = result.getOrDefault("inserted", new ArrayList<>());
-        List<Integer> updatedLines = result.getOrDefault("updated", new ArrayList<>());
+        List<Integer> insertedLines = (List<Integer>) result.getOrDefault("inserted", new ArrayList<>());
+        List<Integer> insertedIds = (List<Integer>) result.getOrDefault("insertedIds", new ArrayList<>());
+        List<Integer> updatedLines = (List<Integer>) result.getOrDefault("updated", new ArrayList<>());
+        job.setResultCounts(insertedLines.size(), updatedLines.size());
+        job.setDataVersion((Long) result.get("dataVersion"));
 
         // Add success messages
         messages.add(ActionMessages.GLOBAL_MESSAGE,
                 new ActionMessage(Constants.SUCCESS_IMPORT_COMPLETED));
         messages.add(ActionMessages.GLOBAL_MESSAGE,
                 new ActionMessage(Constants.SUCCESS_IMPORT_INSERTED,
-                        insertedLines.isEmpty() ? "None" : joinIntegers(insertedLines)));
+                        insertedLines.isEmpty() ? "None" : joinInserted(insertedLines, insertedIds)));
         messages.add(ActionMessages.GLOBAL_MESSAGE,
                 new ActionMessage(Constants.SUCCESS_IMPORT_UPDATED,
                         updatedLines.isEmpty() ? "None" : joinIntegers(updatedLines)));
     }
 
+    /**
+     * Iterates over the data rows of an already validated CSV file, tokenizing
+     * one record per call so that only the current row is held in memory.
+     * Skips the header record and empty lines like {@link #processCsvFile}.
+     * Each row read is counted as written on the job, except in a dry run.
+     * Rows that lose to a duplicate are skipped but keep their row number, so
+     * row numbers match the validation pass and chunked-commit checkpoints.
+     */
+    private class CsvCustomerIterator implements Iterator<T004Dto> {
+
+        /** Tokenizer over the CSV file */
+        private final CsvTokenizer tokenizer;
+
+        /** Decides which repeated rows are written */
+        private final DuplicateFilter duplicates;
+
+        /** Job whose written counter is updated */
+        private final ImportJob job;
+
+        /** Next row to return, or null when not yet read */
+        private T004Dto next;
+
+        /** Number of data rows read so far */
+        private int rowNumber;
+
+        CsvCustomerIterator(CsvTokenizer tokenizer, DuplicateFilter duplicates, ImportJob job) {
+            this.tokenizer = tokenizer;
+            this.duplicates = duplicates;
+            this.job = job;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            try {
+                while (tokenizer.nextRecord()) {
+                    if (tokenizer.getRecordNumber() == 1 || tokenizer.isBlankRecord()) {
+                        continue;
+                    }
+                    T004Dto dto = toCustomerDto(tokenizer);
+                    String customerIdStr = dto.getRawCustomerId();
+                    dto.setCustomerID(customerIdStr.isEmpty() ? 0 : Integer.parseInt(customerIdStr));
+                    dto.setRowNumber(++rowNumber);
+                    if (!job.isDryRun()) {
+                        job.setRowsWritten(rowNumber);
+                    }
+                    if (!duplicates.isWinner(dto, rowNumber)) {
+                        continue;
+                    }
+                    next = dto;
+                    return true;
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public T004Dto next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T004Dto dto = next;
+            next = null;
+            return dto;
+        }
+    }
+
     /**
      * Joins a list of integers into a comma-separated string.
      *
@@ -192,29 +856,25 @@ public class T004Service {
     }
 
     /**
-     * Parses a CSV line into array of fields, handling quoted values.
+     * Joins inserted line numbers with the CUSTOMER_ID each line received,
+     * e.g. {@code 2 (ID=1001), 5 (ID=1002)}.
      *
-     * @param line CSV line
-     * @return Array of fields
-     */
-    private String[] parseCsvLine(String line) {
-        List<String> result = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder currentField = new StringBuilder();
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (c == '"') {
-                inQuotes = !inQuotes; // Toggle quote state
-            } else if (c == ',' && !inQuotes) {
-                result.add(currentField.toString());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
+     * @param lines inserted line numbers
+     * @param ids   IDs aligned with {@code lines}
+     * @return Comma-separated string
+     */
+    private String joinInserted(List<Integer> lines, List<Integer> ids) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            sb.append(lines.get(i));
+            if (i < ids.size()) {
+                sb.append(" (ID=").append(ids.get(i)).append(')');
+            }
+            if (i < lines.size() - 1) {
+                sb.append(", ");
             }
         }
-        result.add(currentField.toString()); // Add last field
-        return result.toArray(new String[0]);
+        return sb.toString();
     }
 
     /**
@@ -245,18 +905,19 @@ public class T004Service {
 
     /**
      * Validates the Customer ID.
-     * Checks if the ID exists in the database if provided.
+     * Checks if the ID exists among active customers if provided. The lookup
+     * goes to {@link CustomerIdIndex}, so it needs no database round trip.
      *
      * @param customerIdStr Customer ID as string
      * @param lineNumber    Current line number for error messages
      * @param errors        ActionMessages to collect validation errors
-     * @throws SQLException If database check fails
+     * @throws SQLException If loading or reconciling the index fails
      */
     private void validateCustomerId(String customerIdStr, int lineNumber, ActionMessages errors) throws SQLException {
         // Only validate if ID is not empty
         if (!customerIdStr.isEmpty()) {
             int customerId = Integer.parseInt(customerIdStr); // Convert to integer
-            boolean customerExists = t004Dao.checkCustomerExists(customerId); // Check existence in DB
+            boolean customerExists = customerIdIndex.contains(customerId); // Check existence in the index
             if (!customerExists) {
                 // Add error if customer does not exist
                 errors.add(Constants.GLOBAL,
@@ -309,7 +970,7 @@ public class T004Service {
      * @param errors     ActionMessages to collect validation errors
      */
     private void validateBirthday(String birthday, int lineNumber, ActionMessages errors) {
-        if (!Helper.isValidDate(birthday)) {
+        if (!Validator.isValidDate(birthday)) {
             // Add error if date is invalid
             errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_BIRTHDAY_INVALID, lineNumber, birthday));
         }
@@ -324,7 +985,7 @@ public class T004Service {
      * @param errors     ActionMessages to collect validation errors
      */
     private void validateEmail(String email, int lineNumber, ActionMessages errors) {
-        if (!Helper.isValidEmail(email)) {
+        if (!Validator.isValidEmail(email)) {
             // Add error if email format is invalid
             errors.add(Constants.GLOBAL, new ActionMessage(Constants.ERROR_IMPORT_EMAIL_INVALID, lineNumber, email));
         }
@@ -0,0 +1,112 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * AppConfig - Utility class holding application settings loaded from
+ * {@code appConfig.properties} using the Singleton pattern.
+ *
+ * <p>Missing or blank keys fall back to the default given by the caller, so
+ * the properties file only needs to list the values that differ from the
+ * built-in defaults.</p>
+ *
+ * @author YourName
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class AppConfig {
+
+	/** Eager Singleton instance */
+	private static final AppConfig instance = new AppConfig();
+
+	private final Properties properties = new Properties();
+
+	/**
+	 * Private constructor for eager Singleton. Loads settings from
+	 * appConfig.properties if it is present in the classpath.
+	 *
+	 * @throws RuntimeException if the file exists but cannot be read
+	 */
+	private AppConfig() {
+		try (InputStream input = AppConfig.class.getClassLoader().getResourceAsStream("appConfig.properties")) {
+			if (input != null) {
+				properties.load(input);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to load application configuration", e);
+		}
+	}
+
+	/**
+	 * Provides access to the Singleton instance.
+	 *
+	 * @return the singleton instance of AppConfig
+	 */
+	public static AppConfig getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Returns a string setting.
+	 *
+	 * @param key          the property key
+	 * @param defaultValue value returned when the key is missing or blank
+	 * @return the configured value or the default
+	 */
+	public String getString(String key, String defaultValue) {
+		String value = properties.getProperty(key);
+		return Helper.isEmpty(value) ? defaultValue : value.trim();
+	}
+
+	/**
+	 * Returns an integer setting.
+	 *
+	 * @param key          the property key
+	 * @param defaultValue value returned when the key is missing, blank or not a number
+	 * @return the configured value or the default
+	 */
+	public int getInt(String key, int defaultValue) {
+		String value = getString(key, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Returns a long setting.
+	 *
+	 * @param key          the property key
+	 * @param defaultValue value returned when the key is missing, blank or not a number
+	 * @return the configured value or the default
+	 */
+	public long getLong(String key, long defaultValue) {
+		String value = getString(key, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Returns a boolean setting.
+	 *
+	 * @param key          the property key
+	 * @param defaultValue value returned when the key is missing or blank
+	 * @return the configured value or the default
+	 */
+	public boolean getBoolean(String key, boolean defaultValue) {
+		String value = getString(key, null);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
+}
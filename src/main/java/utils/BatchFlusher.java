@@ -0,0 +1,150 @@
+package utils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BatchFlusher - Sends a {@link PreparedStatement} batch in bounded pieces and
+ * adapts the piece size to the measured latency.
+ *
+ * <p>Rows are added with an estimate of their payload. The batch is executed
+ * as soon as it holds the current batch size in rows or
+ * {@code import.batch.maxBytes} of payload, so neither the driver nor the
+ * server ever sees one giant request.</p>
+ *
+ * <p>After each full batch the size is adjusted towards
+ * {@code import.batch.targetMillis}: halved when a batch took longer than the
+ * target, grown by half when it took less than half of it, and always kept
+ * within {@code import.batch.minRows} and {@code import.batch.maxRows}.
+ * The size learned for a statement name carries over to the next flusher
+ * with that name, and the per-name counters are available from
+ * {@link #getStats()}; {@code T004Service} logs them after every import.</p>
+ *
+ * <p>A flusher belongs to one connection and is not thread-safe.</p>
+ */
+public class BatchFlusher {
+
+	private static final AppConfig config = AppConfig.getInstance();
+
+	private static final int MIN_ROWS = Math.max(1, config.getInt("import.batch.minRows", 100));
+	private static final int MAX_ROWS = Math.max(MIN_ROWS, config.getInt("import.batch.maxRows", 5000));
+	private static final int INITIAL_ROWS = Math.min(MAX_ROWS,
+			Math.max(MIN_ROWS, config.getInt("import.batch.initialRows", 1000)));
+	private static final long TARGET_MILLIS = config.getLong("import.batch.targetMillis", 250);
+	private static final long MAX_BYTES = config.getLong("import.batch.maxBytes", 4L * 1024 * 1024);
+
+	/** Counters and learned size per statement name */
+	private static final Map<String, BatchStats> STATS = new ConcurrentHashMap<>();
+
+	private final PreparedStatement stmt;
+	private final BatchStats stats;
+
+	/** Rows and estimated bytes added since the last execute */
+	private int pendingRows;
+	private long pendingBytes;
+
+	/** Current batch size in rows */
+	private int batchSize;
+
+	/**
+	 * Creates a flusher for a prepared statement.
+	 *
+	 * @param stmt statement the rows are added to
+	 * @param name statement name used for statistics and the learned size (e.g. "import.insert")
+	 */
+	public BatchFlusher(PreparedStatement stmt, String name) {
+		this.stmt = stmt;
+		this.stats = STATS.computeIfAbsent(name, key -> {
+			BatchStats created = new BatchStats();
+			created.recordResize(INITIAL_ROWS, INITIAL_ROWS);
+			return created;
+		});
+		this.batchSize = stats.getBatchSize();
+	}
+
+	/**
+	 * Returns the batch counters of all statement names seen so far.
+	 *
+	 * @return unmodifiable map of statement name to statistics
+	 */
+	public static Map<String, BatchStats> getStats() {
+		return Collections.unmodifiableMap(STATS);
+	}
+
+	/**
+	 * Returns the statement rows are added to.
+	 *
+	 * @return the prepared statement
+	 */
+	public PreparedStatement getStatement() {
+		return stmt;
+	}
+
+	/**
+	 * Adds the statement's current parameters to the batch and executes the
+	 * batch once it reaches the current size or the payload limit.
+	 *
+	 * @param payloadBytes estimated size of the row's parameters
+	 * @throws SQLException database error
+	 */
+	public void add(long payloadBytes) throws SQLException {
+		stmt.addBatch();
+		pendingRows++;
+		pendingBytes += payloadBytes;
+		if (pendingRows >= batchSize) {
+			execute(true);
+		} else if (pendingBytes >= MAX_BYTES) {
+			execute(false);
+		}
+	}
+
+	/**
+	 * Executes the pending rows, if any. Used before a commit; a partial batch
+	 * does not change the learned size.
+	 *
+	 * @throws SQLException database error
+	 */
+	public void flush() throws SQLException {
+		if (pendingRows > 0) {
+			execute(false);
+		}
+	}
+
+	/**
+	 * Executes the pending rows and records the timing.
+	 *
+	 * @param full true if the batch reached the row limit, so its latency is
+	 *             representative for the current size
+	 * @throws SQLException database error
+	 */
+	private void execute(boolean full) throws SQLException {
+		long start = System.nanoTime();
+		stmt.executeBatch();
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		stats.record(pendingRows, pendingBytes, millis);
+
+		if (millis > TARGET_MILLIS) {
+			resize(batchSize / 2);
+		} else if (full && millis < TARGET_MILLIS / 2) {
+			resize(batchSize + batchSize / 2);
+		}
+		pendingRows = 0;
+		pendingBytes = 0;
+	}
+
+	/**
+	 * Sets a new batch size within the configured bounds.
+	 *
+	 * @param size requested size
+	 */
+	private void resize(int size) {
+		int bounded = Math.max(MIN_ROWS, Math.min(MAX_ROWS, size));
+		if (bounded != batchSize) {
+			stats.recordResize(batchSize, bounded);
+			batchSize = bounded;
+		}
+	}
+}
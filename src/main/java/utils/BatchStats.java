@@ -0,0 +1,106 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BatchStats - Counters describing the JDBC batches sent by
+ * {@link BatchFlusher} for one kind of statement (e.g. import inserts).
+ *
+ * <p>Average latency per batch and per row, together with the batch size the
+ * flusher has settled on, show whether the configured bounds
+ * ({@code import.batch.*} in {@code appConfig.properties}) fit the database.</p>
+ */
+public class BatchStats {
+
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong rows = new AtomicLong();
+	private final AtomicLong payloadBytes = new AtomicLong();
+	private final AtomicLong totalMillis = new AtomicLong();
+	private final AtomicLong maxMillis = new AtomicLong();
+	private final AtomicLong grows = new AtomicLong();
+	private final AtomicLong shrinks = new AtomicLong();
+	private volatile int batchSize;
+
+	/**
+	 * Records an executed batch.
+	 *
+	 * @param batchRows  rows in the batch
+	 * @param batchBytes estimated payload of the batch
+	 * @param millis     time {@code executeBatch} took
+	 */
+	void record(int batchRows, long batchBytes, long millis) {
+		batches.incrementAndGet();
+		rows.addAndGet(batchRows);
+		payloadBytes.addAndGet(batchBytes);
+		totalMillis.addAndGet(millis);
+		maxMillis.accumulateAndGet(millis, Math::max);
+	}
+
+	/**
+	 * Records a change of the adaptive batch size.
+	 *
+	 * @param oldSize previous size
+	 * @param newSize new size
+	 */
+	void recordResize(int oldSize, int newSize) {
+		if (newSize > oldSize) {
+			grows.incrementAndGet();
+		} else if (newSize < oldSize) {
+			shrinks.incrementAndGet();
+		}
+		batchSize = newSize;
+	}
+
+	/** @return number of batches executed */
+	public long getBatches() {
+		return batches.get();
+	}
+
+	/** @return number of rows executed in batches */
+	public long getRows() {
+		return rows.get();
+	}
+
+	/** @return estimated payload sent, in bytes */
+	public long getPayloadBytes() {
+		return payloadBytes.get();
+	}
+
+	/** @return total time spent in {@code executeBatch}, in milliseconds */
+	public long getTotalMillis() {
+		return totalMillis.get();
+	}
+
+	/** @return slowest batch, in milliseconds */
+	public long getMaxMillis() {
+		return maxMillis.get();
+	}
+
+	/** @return average time per batch, in milliseconds */
+	public double getAverageMillis() {
+		long count = getBatches();
+		return count == 0 ? 0 : (double) getTotalMillis() / count;
+	}
+
+	/** @return number of times the batch size was increased */
+	public long getGrows() {
+		return grows.get();
+	}
+
+	/** @return number of times the batch size was decreased */
+	public long getShrinks() {
+		return shrinks.get();
+	}
+
+	/** @return batch size currently used by new flushers */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	@Override
+	public String toString() {
+		return "batches=" + getBatches() + ", rows=" + getRows() + ", payloadBytes=" + getPayloadBytes()
+				+ ", avgMillis=" + String.format("%.1f", getAverageMillis()) + ", maxMillis=" + getMaxMillis()
+				+ ", batchSize=" + getBatchSize() + ", grows=" + getGrows() + ", shrinks=" + getShrinks();
+	}
+}
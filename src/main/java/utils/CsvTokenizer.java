@@ -0,0 +1,370 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * CsvTokenizer - Streaming RFC 4180 CSV tokenizer.
+ *
+ * <p>A state machine scans characters from a {@link Reader} through a reusable
+ * buffer and splits them into records and fields. Fields are exposed as slices
+ * (start/length) of a record buffer that is reused for every record, so reading
+ * a row allocates nothing; a {@link String} is only created when a caller asks
+ * for one with {@link #getString(int)} or {@link #getTrimmedString(int)}.</p>
+ *
+ * <p>Supported syntax:</p>
+ * <ul>
+ *   <li>Fields separated by {@code ,}; records by {@code \n}, {@code \r\n} or {@code \r}.</li>
+ *   <li>Quoted fields, which may contain commas, line breaks and escaped quotes ({@code ""}).</li>
+ *   <li>The Excel text form {@code ="..."} (used by the export for birthdays),
+ *       which yields the quoted content without the leading {@code =}.</li>
+ * </ul>
+ *
+ * <p>Input that is not strictly RFC 4180 is read leniently: a quote inside an
+ * unquoted field is kept as a literal character, and characters after a
+ * closing quote are appended to the field.</p>
+ */
+public class CsvTokenizer {
+
+	private static final int EOF = -1;
+
+	/** Scanner states */
+	private static final int FIELD_START = 0;
+	private static final int UNQUOTED = 1;
+	private static final int QUOTED = 2;
+	private static final int QUOTE_IN_QUOTED = 3;
+	private static final int EQUALS_START = 4;
+
+	private final Reader reader;
+
+	/** Input buffer */
+	private final char[] input = new char[8192];
+	private int inputPos;
+	private int inputLimit;
+
+	/** Characters of the current record (unescaped), reused across records */
+	private char[] record = new char[256];
+	private int recordLength;
+
+	/** Field slices of the current record, reused across records */
+	private int[] fieldStarts = new int[16];
+	private int[] fieldEnds = new int[16];
+	private int fieldCount;
+
+	/** Physical line on which the current record starts (1-based) */
+	private int lineNumber;
+
+	/** Physical line the scanner is on */
+	private int currentLine = 1;
+
+	/** Number of records read so far */
+	private int recordNumber;
+
+	/**
+	 * Creates a tokenizer reading from the given character stream.
+	 *
+	 * @param reader the CSV source; it is not buffered further by the caller
+	 */
+	public CsvTokenizer(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads the next record.
+	 *
+	 * @return true if a record was read, false at end of input
+	 * @throws IOException if the underlying reader fails
+	 */
+	public boolean nextRecord() throws IOException {
+		recordLength = 0;
+		fieldCount = 0;
+		lineNumber = currentLine;
+
+		int c = read();
+		if (c == EOF) {
+			return false;
+		}
+
+		int state = FIELD_START;
+		int fieldStart = 0;
+		while (true) {
+			switch (state) {
+			case FIELD_START:
+				fieldStart = recordLength;
+				if (c == '"') {
+					state = QUOTED;
+				} else if (c == '=') {
+					state = EQUALS_START;
+				} else if (c == ',') {
+					addField(fieldStart, recordLength);
+				} else if (c == '\n' || c == '\r' || c == EOF) {
+					addField(fieldStart, recordLength);
+					return endRecord(c);
+				} else {
+					append((char) c);
+					state = UNQUOTED;
+				}
+				break;
+			case EQUALS_START:
+				if (c == '"') {
+					// ="..." form: drop the '=' and read a quoted field
+					state = QUOTED;
+					break;
+				}
+				append('=');
+				state = UNQUOTED;
+				continue; // re-dispatch c as part of an unquoted field
+			case UNQUOTED:
+				if (c == ',') {
+					addField(fieldStart, recordLength);
+					state = FIELD_START;
+				} else if (c == '\n' || c == '\r' || c == EOF) {
+					addField(fieldStart, recordLength);
+					return endRecord(c);
+				} else {
+					append((char) c);
+				}
+				break;
+			case QUOTED:
+				if (c == '"') {
+					state = QUOTE_IN_QUOTED;
+				} else if (c == EOF) {
+					// Unterminated quote: keep what was read
+					addField(fieldStart, recordLength);
+					return endRecord(c);
+				} else {
+					if (c == '\n' || (c == '\r' && peek() != '\n')) {
+						currentLine++;
+					}
+					append((char) c);
+				}
+				break;
+			case QUOTE_IN_QUOTED:
+				if (c == '"') {
+					// Escaped quote
+					append('"');
+					state = QUOTED;
+				} else if (c == ',') {
+					addField(fieldStart, recordLength);
+					state = FIELD_START;
+				} else if (c == '\n' || c == '\r' || c == EOF) {
+					addField(fieldStart, recordLength);
+					return endRecord(c);
+				} else {
+					// Lenient: text after the closing quote belongs to the field
+					append((char) c);
+					state = UNQUOTED;
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unknown state " + state);
+			}
+			c = read();
+		}
+	}
+
+	/**
+	 * Returns the number of fields in the current record.
+	 *
+	 * @return the field count (at least 1)
+	 */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * Returns the buffer holding the current record's characters. Valid until
+	 * the next call to {@link #nextRecord()}.
+	 *
+	 * @return the record buffer
+	 */
+	public char[] getBuffer() {
+		return record;
+	}
+
+	/**
+	 * Returns the start offset of a field in {@link #getBuffer()}.
+	 *
+	 * @param index the 0-based field index
+	 * @return the start offset
+	 */
+	public int getFieldStart(int index) {
+		return fieldStarts[index];
+	}
+
+	/**
+	 * Returns the length of a field in {@link #getBuffer()}.
+	 *
+	 * @param index the 0-based field index
+	 * @return the field length
+	 */
+	public int getFieldLength(int index) {
+		return fieldEnds[index] - fieldStarts[index];
+	}
+
+	/**
+	 * Returns a field as a string.
+	 *
+	 * @param index the 0-based field index
+	 * @return the field value, or an empty string if the record has fewer fields
+	 */
+	public String getString(int index) {
+		if (index >= fieldCount) {
+			return "";
+		}
+		return new String(record, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+	}
+
+	/**
+	 * Returns a field as a string without leading and trailing whitespace.
+	 *
+	 * @param index the 0-based field index
+	 * @return the trimmed field value, or an empty string if the record has fewer fields
+	 */
+	public String getTrimmedString(int index) {
+		if (index >= fieldCount) {
+			return "";
+		}
+		int start = fieldStarts[index];
+		int end = fieldEnds[index];
+		while (start < end && record[start] <= ' ') {
+			start++;
+		}
+		while (end > start && record[end - 1] <= ' ') {
+			end--;
+		}
+		return start == end ? "" : new String(record, start, end - start);
+	}
+
+	/**
+	 * Checks whether the current record is blank (a single field of whitespace).
+	 *
+	 * @return true if the record carries no data
+	 */
+	public boolean isBlankRecord() {
+		if (fieldCount != 1) {
+			return false;
+		}
+		for (int i = fieldStarts[0]; i < fieldEnds[0]; i++) {
+			if (record[i] > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the physical line on which the current record starts.
+	 *
+	 * @return the 1-based line number
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Returns the number of records read so far, including the current one.
+	 *
+	 * @return the 1-based record number
+	 */
+	public int getRecordNumber() {
+		return recordNumber;
+	}
+
+	/**
+	 * Finishes a record, consuming the {@code \n} of a {@code \r\n} pair.
+	 *
+	 * @param terminator the character that ended the record
+	 * @return always true
+	 * @throws IOException if the underlying reader fails
+	 */
+	private boolean endRecord(int terminator) throws IOException {
+		if (terminator == '\r' && peek() == '\n') {
+			inputPos++;
+		}
+		if (terminator != EOF) {
+			currentLine++;
+		}
+		recordNumber++;
+		return true;
+	}
+
+	/**
+	 * Appends a character to the record buffer, growing it if needed.
+	 *
+	 * @param c the character
+	 */
+	private void append(char c) {
+		if (recordLength == record.length) {
+			char[] grown = new char[record.length * 2];
+			System.arraycopy(record, 0, grown, 0, recordLength);
+			record = grown;
+		}
+		record[recordLength++] = c;
+	}
+
+	/**
+	 * Records a field slice, growing the slice arrays if needed.
+	 *
+	 * @param start start offset in the record buffer
+	 * @param end   end offset (exclusive) in the record buffer
+	 */
+	private void addField(int start, int end) {
+		if (fieldCount == fieldStarts.length) {
+			int[] grownStarts = new int[fieldCount * 2];
+			int[] grownEnds = new int[fieldCount * 2];
+			System.arraycopy(fieldStarts, 0, grownStarts, 0, fieldCount);
+			System.arraycopy(fieldEnds, 0, grownEnds, 0, fieldCount);
+			fieldStarts = grownStarts;
+			fieldEnds = grownEnds;
+		}
+		fieldStarts[fieldCount] = start;
+		fieldEnds[fieldCount] = end;
+		fieldCount++;
+	}
+
+	/**
+	 * Reads the next character from the input buffer, refilling it as needed.
+	 *
+	 * @return the character, or {@link #EOF}
+	 * @throws IOException if the underlying reader fails
+	 */
+	private int read() throws IOException {
+		if (inputPos == inputLimit && !fill()) {
+			return EOF;
+		}
+		return input[inputPos++];
+	}
+
+	/**
+	 * Returns the next character without consuming it.
+	 *
+	 * @return the character, or {@link #EOF}
+	 * @throws IOException if the underlying reader fails
+	 */
+	private int peek() throws IOException {
+		if (inputPos == inputLimit && !fill()) {
+			return EOF;
+		}
+		return input[inputPos];
+	}
+
+	/**
+	 * Refills the input buffer.
+	 *
+	 * @return false at end of input
+	 * @throws IOException if the underlying reader fails
+	 */
+	private boolean fill() throws IOException {
+		int n;
+		do {
+			n = reader.read(input, 0, input.length);
+		} while (n == 0);
+		if (n < 0) {
+			return false;
+		}
+		inputPos = 0;
+		inputLimit = n;
+		return true;
+	}
+}
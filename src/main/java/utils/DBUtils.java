@@ -2,17 +2,28 @@ package utils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Properties;
 
+import com.microsoft.sqlserver.jdbc.ISQLServerConnection;
+
 /**
  * DBUtils - Utility class for managing database connections using the Singleton
  * pattern. This class loads database configurations from a properties file and
  * provides JDBC connections when needed. It ensures thread-safety and proper
  * resource management.
  *
+ * <p>Read-only paths should use {@link #getReadConnection()}, which runs the
+ * connection under SNAPSHOT isolation when {@code db.readIsolation=snapshot}
+ * and the database allows it, so searches and exports do not queue behind
+ * long import transactions.</p>
+ *
  * @author YourName
  * @version 1.0
  * @since 2025-07-21
@@ -22,10 +33,42 @@ public class DBUtils {
 	/** Eager Singleton instance */
 	private static final DBUtils instance = new DBUtils();
 
+	/** Read isolation setting value enabling SNAPSHOT reads */
+	private static final String READ_ISOLATION_SNAPSHOT = "snapshot";
+
+	/** Checks whether the database allows SNAPSHOT / has READ_COMMITTED_SNAPSHOT on */
+	private static final String SNAPSHOT_STATE_SQL = "SELECT snapshot_isolation_state, is_read_committed_snapshot_on"
+			+ " FROM sys.databases WHERE name = DB_NAME()";
+
+	/** Lock wait time of the current session */
+	private static final String LOCK_WAIT_SQL = "SELECT ISNULL(SUM(wait_time_ms), 0)"
+			+ " FROM sys.dm_exec_session_wait_stats WHERE session_id = @@SPID AND wait_type LIKE 'LCK[_]M[_]%'";
+
 	private final String url;
 	private final String username;
 	private final String password;
 
+	/** Configured read isolation ("snapshot" or "default") */
+	private final String readIsolation;
+
+	/** How often the database option is re-checked, in milliseconds */
+	private final long readIsolationRecheckMillis;
+
+	/** Whether lock waits of read connections are sampled */
+	private volatile boolean measureLockWaits;
+
+	/** Resolved isolation level for read connections */
+	private volatile int readIsolationLevel = Connection.TRANSACTION_READ_COMMITTED;
+
+	/** True if read connections see row versions (SNAPSHOT or READ_COMMITTED_SNAPSHOT) */
+	private volatile boolean versionedReads;
+
+	/** Time the database option was last checked; 0 means never */
+	private volatile long readIsolationCheckedAt;
+
+	/** Contention metric for read connections */
+	private final ReadContentionStats readStats = new ReadContentionStats();
+
 	/**
 	 * Private constructor for eager Singleton. Loads database configuration from
 	 * dbConfig.properties.
@@ -46,6 +89,9 @@ public class DBUtils {
 			String databaseName = prop.getProperty("db.databaseName");
 			username = prop.getProperty("db.username");
 			password = prop.getProperty("db.password");
+			readIsolation = prop.getProperty("db.readIsolation", "default").trim();
+			readIsolationRecheckMillis = Long.parseLong(prop.getProperty("db.readIsolation.recheckMinutes", "10").trim()) * 60_000L;
+			measureLockWaits = Boolean.parseBoolean(prop.getProperty("db.readIsolation.measureLockWaits", "true").trim());
 
 			url = String.format("jdbc:sqlserver://%s:%s;databaseName=%s", serverName, port, databaseName);
 
@@ -75,6 +121,133 @@ public class DBUtils {
 	public Connection getConnection() throws SQLException {
 		return DriverManager.getConnection(url, username, password);
 	}
+
+	/**
+	 * Creates and returns a new connection for read-only work.
+	 * <p>
+	 * When {@code db.readIsolation=snapshot} and the database has
+	 * {@code ALLOW_SNAPSHOT_ISOLATION ON}, the connection runs under SNAPSHOT
+	 * isolation. If only {@code READ_COMMITTED_SNAPSHOT} is on, the default
+	 * READ COMMITTED level already reads row versions. Otherwise the connection
+	 * falls back to locking READ COMMITTED. The database option is re-checked
+	 * every {@code db.readIsolation.recheckMinutes} so that turning it on takes
+	 * effect without a restart.
+	 * </p>
+	 * <p>
+	 * Callers needing several statements to see the same snapshot should turn
+	 * off auto-commit and commit when done. Closing the connection records it
+	 * in {@link #getReadStats()}, which {@code T004Service} logs after every
+	 * import.
+	 * </p>
+	 *
+	 * @return a new read Connection to the configured database
+	 * @throws SQLException if the connection cannot be opened
+	 */
+	public Connection getReadConnection() throws SQLException {
+		Connection conn = getConnection();
+		try {
+			resolveReadIsolation(conn);
+			if (readIsolationLevel != Connection.TRANSACTION_READ_COMMITTED) {
+				conn.setTransactionIsolation(readIsolationLevel);
+			}
+		} catch (SQLException e) {
+			conn.close();
+			throw e;
+		}
+		return trackReadConnection(conn, versionedReads);
+	}
+
+	/**
+	 * Returns the contention metric of read connections.
+	 *
+	 * @return the read statistics
+	 */
+	public ReadContentionStats getReadStats() {
+		return readStats;
+	}
+
+	/**
+	 * Resolves which isolation level read connections should use, checking
+	 * the database option at most once per recheck interval.
+	 *
+	 * @param conn an open connection used to query the database option
+	 */
+	private void resolveReadIsolation(Connection conn) {
+		if (!READ_ISOLATION_SNAPSHOT.equalsIgnoreCase(readIsolation)) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		if (readIsolationCheckedAt != 0 && now - readIsolationCheckedAt < readIsolationRecheckMillis) {
+			return;
+		}
+		synchronized (this) {
+			if (readIsolationCheckedAt != 0 && now - readIsolationCheckedAt < readIsolationRecheckMillis) {
+				return;
+			}
+			int level = Connection.TRANSACTION_READ_COMMITTED;
+			boolean versioned = false;
+			try (PreparedStatement ps = conn.prepareStatement(SNAPSHOT_STATE_SQL);
+					ResultSet rs = ps.executeQuery()) {
+				if (rs.next()) {
+					if (rs.getInt(1) == 1) {
+						// ALLOW_SNAPSHOT_ISOLATION ON
+						level = ISQLServerConnection.TRANSACTION_SNAPSHOT;
+						versioned = true;
+					} else if (rs.getBoolean(2)) {
+						// READ_COMMITTED_SNAPSHOT ON: plain READ COMMITTED reads versions
+						versioned = true;
+					}
+				}
+			} catch (SQLException e) {
+				// Cannot read the option: fall back to locking reads
+			}
+			readIsolationLevel = level;
+			versionedReads = versioned;
+			readIsolationCheckedAt = now;
+		}
+	}
+
+	/**
+	 * Wraps a read connection so that closing it records the time the session
+	 * spent waiting on locks.
+	 *
+	 * @param conn      the physical connection
+	 * @param versioned whether the connection reads row versions
+	 * @return a connection proxy delegating every call to {@code conn}
+	 */
+	private Connection trackReadConnection(Connection conn, boolean versioned) {
+		return (Connection) Proxy.newProxyInstance(DBUtils.class.getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					if ("close".equals(method.getName()) && !conn.isClosed()) {
+						readStats.record(versioned, sampleLockWaitMillis(conn));
+					}
+					try {
+						return method.invoke(conn, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+
+	/**
+	 * Reads the lock wait time of the connection's session.
+	 *
+	 * @param conn an open connection
+	 * @return lock wait time in milliseconds, or -1 if not available
+	 */
+	private long sampleLockWaitMillis(Connection conn) {
+		if (!measureLockWaits) {
+			return -1;
+		}
+		try (PreparedStatement ps = conn.prepareStatement(LOCK_WAIT_SQL);
+				ResultSet rs = ps.executeQuery()) {
+			return rs.next() ? rs.getLong(1) : -1;
+		} catch (SQLException e) {
+			// DMV not available (older server or no permission): stop sampling
+			measureLockWaits = false;
+			return -1;
+		}
+	}
 	public static void main(String[] args) {
 	    try {
 	        DBUtils dbUtils = DBUtils.getInstance();
@@ -0,0 +1,36 @@
+package utils;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading a compressed upload whose expanded content exceeds the
+ * configured size or compression ratio limit.
+ *
+ * @see UploadFormat
+ */
+public class DecompressionLimitException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The limit that was exceeded, in expanded bytes */
+	private final long limitBytes;
+
+	/**
+	 * Creates the exception.
+	 *
+	 * @param limitBytes the limit that was exceeded, in expanded bytes
+	 */
+	public DecompressionLimitException(long limitBytes) {
+		super("Expanded upload exceeds " + limitBytes + " bytes");
+		this.limitBytes = limitBytes;
+	}
+
+	/**
+	 * Returns the limit that was exceeded.
+	 *
+	 * @return the limit, in expanded bytes
+	 */
+	public long getLimitBytes() {
+		return limitBytes;
+	}
+}
@@ -0,0 +1,114 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * ExportFileStore - Utility class managing generated export files on disk
+ * using the Singleton pattern.
+ *
+ * <p>Each export is written to its own file identified by a random ID, so the
+ * same bytes can be served again when a client resumes an interrupted
+ * download. Files older than {@code export.retentionMinutes} are purged
+ * whenever a new file is created.</p>
+ *
+ * @author YourName
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class ExportFileStore {
+
+	/** Eager Singleton instance */
+	private static final ExportFileStore instance = new ExportFileStore();
+
+	/** Accepted shape of a file ID (a UUID), guarding against path traversal */
+	private static final Pattern FILE_ID_PATTERN = Pattern.compile("[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}");
+
+	/** Extension of stored export files */
+	private static final String FILE_EXTENSION = ".csv";
+
+	private final File directory;
+	private final long retentionMillis;
+
+	/**
+	 * Private constructor for eager Singleton. Resolves the export directory
+	 * from {@code export.dir}, defaulting to a folder under {@code java.io.tmpdir}.
+	 */
+	private ExportFileStore() {
+		AppConfig config = AppConfig.getInstance();
+		String dir = config.getString("export.dir",
+				new File(System.getProperty("java.io.tmpdir"), "customer-exports").getPath());
+		directory = new File(dir);
+		retentionMillis = config.getLong("export.retentionMinutes", 60) * 60_000L;
+	}
+
+	/**
+	 * Provides access to the Singleton instance.
+	 *
+	 * @return the singleton instance of ExportFileStore
+	 */
+	public static ExportFileStore getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Creates a new, empty export file and purges expired ones.
+	 *
+	 * @return the new file; its ID is available through {@link #getFileId(File)}
+	 * @throws IOException if the export directory or file cannot be created
+	 */
+	public File createFile() throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create export directory: " + directory);
+		}
+		purgeExpired();
+		File file = new File(directory, UUID.randomUUID() + FILE_EXTENSION);
+		if (!file.createNewFile()) {
+			throw new IOException("Export file already exists: " + file);
+		}
+		return file;
+	}
+
+	/**
+	 * Returns the ID of a file created by this store.
+	 *
+	 * @param file the export file
+	 * @return the file ID
+	 */
+	public String getFileId(File file) {
+		String name = file.getName();
+		return name.substring(0, name.length() - FILE_EXTENSION.length());
+	}
+
+	/**
+	 * Looks up an existing export file by ID.
+	 *
+	 * @param fileId the file ID
+	 * @return the file, or {@code null} if the ID is malformed or the file is gone
+	 */
+	public File findFile(String fileId) {
+		if (fileId == null || !FILE_ID_PATTERN.matcher(fileId).matches()) {
+			return null;
+		}
+		File file = new File(directory, fileId + FILE_EXTENSION);
+		return file.isFile() ? file : null;
+	}
+
+	/**
+	 * Deletes export files older than the retention period.
+	 */
+	private void purgeExpired() {
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+		if (files == null) {
+			return;
+		}
+		long expiry = System.currentTimeMillis() - retentionMillis;
+		for (File file : files) {
+			if (file.lastModified() < expiry) {
+				file.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * IntBitmap - Compressed set of non-negative {@code int} values.
+ *
+ * <p>Follows the Roaring bitmap layout: values are grouped by their high 16
+ * bits, and each group is stored in a container chosen by its density. Sparse
+ * groups (up to {@value #ARRAY_MAX} values) use a sorted {@code char[]};
+ * dense groups use a fixed 8&nbsp;KB bit set. A table of one million sequential
+ * IDs therefore needs about 128&nbsp;KB instead of the tens of megabytes a
+ * {@code HashSet<Integer>} would use.</p>
+ *
+ * <p>This class is not thread-safe; callers guard it with their own lock.</p>
+ */
+public class IntBitmap {
+
+	/** Largest number of values held in an array container */
+	private static final int ARRAY_MAX = 4096;
+
+	/** Words in a bitmap container (65536 bits) */
+	private static final int BITMAP_WORDS = 1024;
+
+	/** High 16 bits of each container, sorted */
+	private char[] keys = new char[4];
+
+	/** Containers, parallel to {@link #keys} */
+	private Container[] containers = new Container[4];
+
+	/** Number of containers in use */
+	private int containerCount;
+
+	/** Number of values in the set */
+	private long cardinality;
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param value the value to add
+	 * @return true if the value was not already present
+	 */
+	public boolean add(int value) {
+		char high = (char) (value >>> 16);
+		int index = Arrays.binarySearch(keys, 0, containerCount, high);
+		Container container;
+		if (index >= 0) {
+			container = containers[index];
+		} else {
+			container = new Container();
+			insertContainer(-index - 1, high, container);
+		}
+		if (container.add((char) value)) {
+			cardinality++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes a value.
+	 *
+	 * @param value the value to remove
+	 * @return true if the value was present
+	 */
+	public boolean remove(int value) {
+		int index = Arrays.binarySearch(keys, 0, containerCount, (char) (value >>> 16));
+		if (index < 0 || !containers[index].remove((char) value)) {
+			return false;
+		}
+		cardinality--;
+		if (containers[index].count == 0) {
+			removeContainer(index);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether a value is present.
+	 *
+	 * @param value the value to look up
+	 * @return true if the set contains the value
+	 */
+	public boolean contains(int value) {
+		int index = Arrays.binarySearch(keys, 0, containerCount, (char) (value >>> 16));
+		return index >= 0 && containers[index].contains((char) value);
+	}
+
+	/**
+	 * Returns the number of values in the set.
+	 *
+	 * @return the cardinality
+	 */
+	public long getCardinality() {
+		return cardinality;
+	}
+
+	/**
+	 * Returns an estimate of the heap used by the containers.
+	 *
+	 * @return approximate size in bytes
+	 */
+	public long getSizeInBytes() {
+		long bytes = keys.length * 2L + containers.length * 8L;
+		for (int i = 0; i < containerCount; i++) {
+			Container container = containers[i];
+			bytes += container.bitmap != null ? BITMAP_WORDS * 8L : container.array.length * 2L;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Inserts a container at the given position, keeping the keys sorted.
+	 *
+	 * @param index     insertion point
+	 * @param high      high 16 bits the container covers
+	 * @param container the new container
+	 */
+	private void insertContainer(int index, char high, Container container) {
+		if (containerCount == keys.length) {
+			keys = Arrays.copyOf(keys, containerCount * 2);
+			containers = Arrays.copyOf(containers, containerCount * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+		System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+		keys[index] = high;
+		containers[index] = container;
+		containerCount++;
+	}
+
+	/**
+	 * Removes the container at the given position.
+	 *
+	 * @param index position of the container
+	 */
+	private void removeContainer(int index) {
+		System.arraycopy(keys, index + 1, keys, index, containerCount - index - 1);
+		System.arraycopy(containers, index + 1, containers, index, containerCount - index - 1);
+		containerCount--;
+		containers[containerCount] = null;
+	}
+
+	/**
+	 * Values sharing the same high 16 bits, stored either as a sorted array of
+	 * low bits or as a bit set once the array would exceed {@link #ARRAY_MAX}.
+	 */
+	private static final class Container {
+
+		/** Sorted low bits while the container is sparse */
+		private char[] array = new char[4];
+
+		/** Bit set once the container is dense, otherwise null */
+		private long[] bitmap;
+
+		/** Number of values in the container */
+		private int count;
+
+		boolean contains(char low) {
+			if (bitmap != null) {
+				return (bitmap[low >>> 6] & (1L << low)) != 0;
+			}
+			return Arrays.binarySearch(array, 0, count, low) >= 0;
+		}
+
+		boolean add(char low) {
+			if (bitmap != null) {
+				long mask = 1L << low;
+				long word = bitmap[low >>> 6];
+				if ((word & mask) != 0) {
+					return false;
+				}
+				bitmap[low >>> 6] = word | mask;
+				count++;
+				return true;
+			}
+			int index = Arrays.binarySearch(array, 0, count, low);
+			if (index >= 0) {
+				return false;
+			}
+			if (count == ARRAY_MAX) {
+				toBitmap();
+				return add(low);
+			}
+			index = -index - 1;
+			if (count == array.length) {
+				array = Arrays.copyOf(array, Math.min(count * 2, ARRAY_MAX));
+			}
+			System.arraycopy(array, index, array, index + 1, count - index);
+			array[index] = low;
+			count++;
+			return true;
+		}
+
+		boolean remove(char low) {
+			if (bitmap != null) {
+				long mask = 1L << low;
+				long word = bitmap[low >>> 6];
+				if ((word & mask) == 0) {
+					return false;
+				}
+				bitmap[low >>> 6] = word & ~mask;
+				count--;
+				if (count <= ARRAY_MAX / 2) {
+					toArray();
+				}
+				return true;
+			}
+			int index = Arrays.binarySearch(array, 0, count, low);
+			if (index < 0) {
+				return false;
+			}
+			System.arraycopy(array, index + 1, array, index, count - index - 1);
+			count--;
+			return true;
+		}
+
+		/** Converts a full array container into a bit set. */
+		private void toBitmap() {
+			bitmap = new long[BITMAP_WORDS];
+			for (int i = 0; i < count; i++) {
+				char low = array[i];
+				bitmap[low >>> 6] |= 1L << low;
+			}
+			array = null;
+		}
+
+		/**
+		 * Converts a bit set back into an array container. Done only once the
+		 * container is half the array limit, so that alternating adds and
+		 * removes around the limit do not convert on every call.
+		 */
+		private void toArray() {
+			char[] values = new char[Math.max(count, 4)];
+			int n = 0;
+			for (int w = 0; w < BITMAP_WORDS; w++) {
+				long word = bitmap[w];
+				while (word != 0) {
+					values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			array = values;
+			bitmap = null;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package utils;
+
+/**
+ * IntLongHashMap - Open-addressing map from {@code int} keys to {@code long}
+ * values without boxing.
+ *
+ * <p>Keys and values live in two parallel primitive arrays probed linearly,
+ * so one entry costs 12 bytes (at a load factor of at most one half) instead
+ * of the ~80 bytes of a {@code HashMap<Integer, Long>} entry. Key {@code 0}
+ * marks an empty slot and cannot be stored; customer IDs start at 1.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ */
+public class IntLongHashMap {
+
+	private int[] keys;
+	private long[] values;
+	private int size;
+	private int mask;
+
+	/**
+	 * Creates a map sized for the expected number of entries.
+	 *
+	 * @param expectedSize expected number of entries
+	 */
+	public IntLongHashMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+		keys = new int[capacity];
+		values = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Associates a value with a key, replacing any previous value.
+	 *
+	 * @param key   the key; must not be 0
+	 * @param value the value
+	 */
+	public void put(int key, long value) {
+		if (key == 0) {
+			throw new IllegalArgumentException("Key 0 is reserved");
+		}
+		int slot = slotOf(key);
+		if (keys[slot] == 0) {
+			keys[slot] = key;
+			size++;
+			if (size * 2 > keys.length) {
+				values[slot] = value;
+				grow();
+				return;
+			}
+		}
+		values[slot] = value;
+	}
+
+	/**
+	 * Returns the value for a key.
+	 *
+	 * @param key          the key
+	 * @param defaultValue value returned when the key is absent
+	 * @return the value, or {@code defaultValue}
+	 */
+	public long get(int key, long defaultValue) {
+		if (key == 0) {
+			return defaultValue;
+		}
+		int slot = slotOf(key);
+		return keys[slot] == 0 ? defaultValue : values[slot];
+	}
+
+	/**
+	 * Checks whether a key is present.
+	 *
+	 * @param key the key
+	 * @return true if the map contains the key
+	 */
+	public boolean containsKey(int key) {
+		return key != 0 && keys[slotOf(key)] != 0;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 *
+	 * @return the entry count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the slot holding a key, or the empty slot where it would go.
+	 *
+	 * @param key the key
+	 * @return slot index
+	 */
+	private int slotOf(int key) {
+		int slot = mixHash(key) & mask;
+		while (keys[slot] != 0 && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Spreads sequential keys across the table.
+	 *
+	 * @param key the key
+	 * @return scrambled hash
+	 */
+	private static int mixHash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/** Doubles the table and re-inserts all entries. */
+	private void grow() {
+		int[] oldKeys = keys;
+		long[] oldValues = values;
+		keys = new int[oldKeys.length * 2];
+		values = new long[oldValues.length * 2];
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int slot = slotOf(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+}
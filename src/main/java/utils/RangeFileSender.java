@@ -0,0 +1,199 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * RangeFileSender - Utility class that serves a file over HTTP with
+ * conditional and partial (Range) request support.
+ *
+ * <p>Clients get an {@code ETag} and {@code Last-Modified} header and may
+ * resume an interrupted download with a {@code Range} header (optionally
+ * guarded by {@code If-Range}). The body is transferred without copying
+ * through the heap: via Tomcat's sendfile support when the connector offers
+ * it, otherwise via {@link FileChannel#transferTo}.</p>
+ */
+public class RangeFileSender {
+
+	/** Request attribute set by Tomcat when the connector supports sendfile */
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	/** Private constructor to prevent instantiation */
+	private RangeFileSender() {
+	}
+
+	/**
+	 * Sends a file as a download, honouring conditional and Range headers.
+	 *
+	 * @param request     the HTTP request (read for conditional/range headers)
+	 * @param response    the HTTP response to write to
+	 * @param file        the file to send
+	 * @param fileName    file name suggested to the client
+	 * @param contentType the content type of the file
+	 * @throws IOException if the file cannot be read or the response cannot be written
+	 */
+	public static void send(HttpServletRequest request, HttpServletResponse response, File file,
+			String fileName, String contentType) throws IOException {
+		long length = file.length();
+		long lastModified = file.lastModified() / 1000 * 1000; // HTTP dates have second precision
+		String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+		response.setHeader("Accept-Ranges", "bytes");
+		response.setHeader("ETag", etag);
+		response.setDateHeader("Last-Modified", lastModified);
+
+		// Conditional GET: the client already has this exact file
+		if (isNotModified(request, etag, lastModified)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		long start = 0;
+		long end = length - 1;
+		String range = request.getHeader("Range");
+		if (range != null && isRangeApplicable(request, etag, lastModified)) {
+			long[] bounds = parseRange(range, length);
+			if (bounds == null) {
+				response.setHeader("Content-Range", "bytes */" + length);
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+			if (bounds.length == 2) {
+				start = bounds[0];
+				end = bounds[1];
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+			}
+		}
+
+		long count = end - start + 1;
+		response.setContentType(contentType);
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+		response.setContentLengthLong(count);
+		if ("HEAD".equals(request.getMethod()) || count <= 0) {
+			return;
+		}
+
+		// Zero-copy through the container when available
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+			request.setAttribute(SENDFILE_START, start);
+			request.setAttribute(SENDFILE_END, end + 1);
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			OutputStream out = response.getOutputStream();
+			WritableByteChannel target = Channels.newChannel(out);
+			long position = start;
+			long remaining = count;
+			while (remaining > 0) {
+				long sent = channel.transferTo(position, remaining, target);
+				if (sent <= 0) {
+					break;
+				}
+				position += sent;
+				remaining -= sent;
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	 * Checks {@code If-None-Match} / {@code If-Modified-Since} against the file.
+	 *
+	 * @param request      the HTTP request
+	 * @param etag         the current ETag of the file
+	 * @param lastModified the last modification time of the file
+	 * @return true if the client's copy is still current
+	 */
+	private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			return "*".equals(ifNoneMatch.trim()) || ifNoneMatch.contains(etag);
+		}
+		long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+		return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+	}
+
+	/**
+	 * Checks {@code If-Range}: a range is only served if the validator still matches.
+	 *
+	 * @param request      the HTTP request
+	 * @param etag         the current ETag of the file
+	 * @param lastModified the last modification time of the file
+	 * @return true if the {@code Range} header should be honoured
+	 */
+	private static boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+		String ifRange = request.getHeader("If-Range");
+		if (ifRange == null) {
+			return true;
+		}
+		if (ifRange.trim().startsWith("\"")) {
+			return etag.equals(ifRange.trim());
+		}
+		try {
+			return request.getDateHeader("If-Range") == lastModified;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Parses a single-range {@code Range: bytes=...} header.
+	 *
+	 * @param range  the raw header value
+	 * @param length the file length
+	 * @return {@code {start, end}} for a satisfiable range, an empty array to
+	 *         serve the whole file (unsupported or multi-range requests), or
+	 *         {@code null} if the range cannot be satisfied
+	 */
+	private static long[] parseRange(String range, long length) {
+		if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+			return new long[0];
+		}
+		String spec = range.substring("bytes=".length()).trim();
+		int dash = spec.indexOf('-');
+		if (dash < 0) {
+			return new long[0];
+		}
+		try {
+			long start;
+			long end;
+			if (dash == 0) {
+				// Suffix range: last N bytes
+				long suffix = Long.parseLong(spec.substring(1));
+				if (suffix <= 0) {
+					return null;
+				}
+				start = Math.max(0, length - suffix);
+				end = length - 1;
+			} else {
+				start = Long.parseLong(spec.substring(0, dash));
+				end = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+				if (end < start) {
+					// Syntactically invalid range: ignore it and serve the whole file
+					return new long[0];
+				}
+				end = Math.min(end, length - 1);
+			}
+			if (start >= length) {
+				return null;
+			}
+			return new long[] { start, end };
+		} catch (NumberFormatException e) {
+			return new long[0];
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ReadContentionStats - Counters describing how read-only connections handed
+ * out by {@link DBUtils#getReadConnection()} interact with concurrent writers.
+ *
+ * <p>Versioned reads (SNAPSHOT or READ COMMITTED SNAPSHOT) never wait on row
+ * or page locks; locking reads are the fallback used when the database option
+ * is off. For both, the time the session spent waiting on locks is sampled
+ * from {@code sys.dm_exec_session_wait_stats} when the connection is closed,
+ * so the metric shows how long readers queued behind writers.</p>
+ */
+public class ReadContentionStats {
+
+	private final AtomicLong versionedReads = new AtomicLong();
+	private final AtomicLong lockingReads = new AtomicLong();
+	private final AtomicLong blockedReads = new AtomicLong();
+	private final AtomicLong lockWaitMillis = new AtomicLong();
+
+	/**
+	 * Records a completed read connection.
+	 *
+	 * @param versioned true if the connection read row versions
+	 * @param waitMillis time spent waiting on locks, or -1 if not measured
+	 */
+	void record(boolean versioned, long waitMillis) {
+		(versioned ? versionedReads : lockingReads).incrementAndGet();
+		if (waitMillis > 0) {
+			blockedReads.incrementAndGet();
+			lockWaitMillis.addAndGet(waitMillis);
+		}
+	}
+
+	/** @return number of reads served under SNAPSHOT / READ COMMITTED SNAPSHOT */
+	public long getVersionedReads() {
+		return versionedReads.get();
+	}
+
+	/** @return number of reads served under locking READ COMMITTED (fallback) */
+	public long getLockingReads() {
+		return lockingReads.get();
+	}
+
+	/** @return number of reads that waited on at least one lock */
+	public long getBlockedReads() {
+		return blockedReads.get();
+	}
+
+	/** @return total time readers spent waiting on locks, in milliseconds */
+	public long getLockWaitMillis() {
+		return lockWaitMillis.get();
+	}
+
+	@Override
+	public String toString() {
+		return "versionedReads=" + getVersionedReads() + ", lockingReads=" + getLockingReads()
+				+ ", blockedReads=" + getBlockedReads() + ", lockWaitMillis=" + getLockWaitMillis();
+	}
+}
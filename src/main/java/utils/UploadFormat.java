@@ -0,0 +1,205 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * UploadFormat - Container formats accepted for CSV uploads.
+ *
+ * <p>A compressed upload is never expanded to disk: {@link #open} wraps the
+ * stored upload in a decompressing stream that the CSV tokenizer reads
+ * directly. The expanded stream is guarded against decompression bombs by
+ * two limits, whichever is hit first:</p>
+ * <ul>
+ *   <li>an absolute number of expanded bytes, and</li>
+ *   <li>a ratio of expanded to compressed bytes (with a 1&nbsp;MB allowance,
+ *       so that tiny files are not rejected for compressing well).</li>
+ * </ul>
+ * <p>Exceeding either fails the read with a {@link DecompressionLimitException}.
+ * The limits are {@code import.upload.maxExpandedBytes} and
+ * {@code import.upload.maxRatio}.</p>
+ */
+public enum UploadFormat {
+
+	/** Plain CSV ({@code .csv}) */
+	CSV(".csv"),
+
+	/** Gzip-compressed CSV ({@code .csv.gz}) */
+	GZIP(".csv.gz"),
+
+	/** Zip archive holding the CSV as its first file entry ({@code .zip}) */
+	ZIP(".zip");
+
+	/** Expanded bytes always allowed regardless of the ratio */
+	private static final long RATIO_ALLOWANCE = 1024 * 1024;
+
+	/** Buffer of the decompressing streams */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** Largest number of CSV bytes a compressed upload may expand to */
+	private static final long MAX_EXPANDED_BYTES =
+			AppConfig.getInstance().getLong("import.upload.maxExpandedBytes", 2L * 1024 * 1024 * 1024);
+
+	/** Largest ratio of expanded to compressed bytes */
+	private static final int MAX_RATIO = AppConfig.getInstance().getInt("import.upload.maxRatio", 100);
+
+	/** File name suffix identifying the format */
+	private final String suffix;
+
+	UploadFormat(String suffix) {
+		this.suffix = suffix;
+	}
+
+	/**
+	 * Returns the file name suffix of this format, e.g. for temp files.
+	 *
+	 * @return the suffix, including the leading dot
+	 */
+	public String getSuffix() {
+		return suffix;
+	}
+
+	/**
+	 * Determines the format from the name of an uploaded file.
+	 *
+	 * @param fileName the client's file name
+	 * @return the format, or null if the file is not an accepted upload
+	 */
+	public static UploadFormat of(String fileName) {
+		if (fileName == null) {
+			return null;
+		}
+		String name = fileName.toLowerCase(Locale.ROOT);
+		for (UploadFormat format : values()) {
+			if (name.endsWith(format.suffix)) {
+				return format;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Opens the CSV content of an upload under the configured limits. The
+	 * returned stream owns {@code in} and closes it.
+	 *
+	 * @param in             the stored upload, as uploaded
+	 * @param compressedSize size of the stored upload in bytes
+	 * @return stream of the CSV bytes
+	 * @throws IOException if the container is corrupt or holds no file
+	 */
+	public InputStream open(InputStream in, long compressedSize) throws IOException {
+		return open(in, compressedSize, MAX_EXPANDED_BYTES, MAX_RATIO);
+	}
+
+	/**
+	 * Opens the CSV content of an upload. The returned stream owns
+	 * {@code in} and closes it.
+	 *
+	 * @param in               the stored upload, as uploaded
+	 * @param compressedSize   size of the stored upload in bytes
+	 * @param maxExpandedBytes largest number of CSV bytes that may be read
+	 * @param maxRatio         largest ratio of CSV bytes to {@code compressedSize}
+	 * @return stream of the CSV bytes
+	 * @throws IOException if the container is corrupt or holds no file
+	 */
+	public InputStream open(InputStream in, long compressedSize, long maxExpandedBytes, int maxRatio)
+			throws IOException {
+		try {
+			switch (this) {
+			case GZIP:
+				return limit(new GZIPInputStream(in, BUFFER_SIZE), compressedSize, maxExpandedBytes, maxRatio);
+			case ZIP:
+				ZipInputStream zip = new ZipInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+				ZipEntry entry;
+				while ((entry = zip.getNextEntry()) != null) {
+					if (!entry.isDirectory()) {
+						return limit(zip, compressedSize, maxExpandedBytes, maxRatio);
+					}
+				}
+				throw new ZipException("Zip archive contains no file");
+			default:
+				return in; // stored as is; the upload size limit applies
+			}
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Wraps an expanded stream in the byte and ratio limits.
+	 *
+	 * @param in               the expanded stream
+	 * @param compressedSize   size of the compressed upload
+	 * @param maxExpandedBytes absolute limit
+	 * @param maxRatio         ratio limit
+	 * @return the guarded stream
+	 */
+	private static InputStream limit(InputStream in, long compressedSize, long maxExpandedBytes, int maxRatio) {
+		long ratioLimit = Math.max(RATIO_ALLOWANCE, compressedSize * maxRatio);
+		return new LimitedInputStream(in, Math.min(maxExpandedBytes, ratioLimit));
+	}
+
+	/**
+	 * Stream that fails once more than a given number of bytes were read.
+	 */
+	private static class LimitedInputStream extends FilterInputStream {
+
+		/** Bytes that may still be read */
+		private long remaining;
+
+		/** The configured limit, for the error message */
+		private final long limit;
+
+		LimitedInputStream(InputStream in, long limit) {
+			super(in);
+			this.limit = limit;
+			this.remaining = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				count(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				count(read);
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count(skipped);
+			return skipped;
+		}
+
+		/**
+		 * Records bytes read and fails when the limit is passed.
+		 *
+		 * @param bytes bytes just read
+		 * @throws DecompressionLimitException if the limit was exceeded
+		 */
+		private void count(long bytes) throws DecompressionLimitException {
+			remaining -= bytes;
+			if (remaining < 0) {
+				throw new DecompressionLimitException(limit);
+			}
+		}
+	}
+}
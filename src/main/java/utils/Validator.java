@@ -0,0 +1,159 @@
+package utils;
+
+/**
+ * Validator - Field rules shared by form validation and the CSV import.
+ *
+ * <p>The rules are hand-written scanners built once, so a check allocates
+ * nothing and never throws on bad input: dates are read digit by digit
+ * instead of through {@code DateTimeFormatter} and exceptions, and e-mail
+ * addresses are checked against a character table equivalent to
+ * {@code Constants.EMAIL_REGEX} instead of a {@code Pattern} compiled per
+ * call. Both run once per line of an import.</p>
+ *
+ * <p>Like the checks they replace, both ignore surrounding whitespace of a
+ * date but not of an e-mail address.</p>
+ */
+public final class Validator {
+
+	/** Returned by {@link #parseDate(String)} for an invalid date */
+	public static final int INVALID_DATE = -1;
+
+	/** Character may appear before the {@code @} of an e-mail address */
+	private static final byte EMAIL_LOCAL = 1;
+
+	/** Character may appear after the {@code @} of an e-mail address */
+	private static final byte EMAIL_DOMAIN = 2;
+
+	/**
+	 * Classes of the ASCII characters allowed in an e-mail address:
+	 * {@code [A-Za-z0-9+_.-]} before the {@code @} and
+	 * {@code [A-Za-z0-9.-]} after it.
+	 */
+	private static final byte[] EMAIL_CHARS = new byte[128];
+
+	static {
+		for (char c = '0'; c <= '9'; c++) {
+			EMAIL_CHARS[c] = EMAIL_LOCAL | EMAIL_DOMAIN;
+		}
+		for (char c = 'A'; c <= 'Z'; c++) {
+			EMAIL_CHARS[c] = EMAIL_LOCAL | EMAIL_DOMAIN;
+			EMAIL_CHARS[c + ('a' - 'A')] = EMAIL_LOCAL | EMAIL_DOMAIN;
+		}
+		EMAIL_CHARS['.'] = EMAIL_LOCAL | EMAIL_DOMAIN;
+		EMAIL_CHARS['-'] = EMAIL_LOCAL | EMAIL_DOMAIN;
+		EMAIL_CHARS['+'] = EMAIL_LOCAL;
+		EMAIL_CHARS['_'] = EMAIL_LOCAL;
+	}
+
+	/** Days per month of a common year */
+	private static final int[] DAYS_IN_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+	private Validator() {
+	}
+
+	/**
+	 * Checks if a date is a valid calendar date in {@code yyyy/MM/dd} format.
+	 *
+	 * @param value the date, surrounding whitespace ignored
+	 * @return true if valid
+	 */
+	public static boolean isValidDate(String value) {
+		return parseDate(value) != INVALID_DATE;
+	}
+
+	/**
+	 * Parses a {@code yyyy/MM/dd} date into a sortable number.
+	 * <p>
+	 * Exactly four year digits (0001-9999) and two month and day digits are
+	 * required, and the day must exist in that month, leap years included.
+	 * </p>
+	 *
+	 * @param value the date, surrounding whitespace ignored
+	 * @return the date as {@code yyyyMMdd}, or {@link #INVALID_DATE}
+	 */
+	public static int parseDate(String value) {
+		if (value == null) {
+			return INVALID_DATE;
+		}
+		int start = 0;
+		int end = value.length();
+		while (start < end && value.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && value.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		if (end - start != 10 || value.charAt(start + 4) != '/' || value.charAt(start + 7) != '/') {
+			return INVALID_DATE;
+		}
+		int year = digits(value, start, 4);
+		int month = digits(value, start + 5, 2);
+		int day = digits(value, start + 8, 2);
+		if (year <= 0 || month < 1 || month > 12 || day < 1) {
+			return INVALID_DATE; // a negative part had a non-digit
+		}
+		int maxDay = month == 2 && isLeapYear(year) ? 29 : DAYS_IN_MONTH[month - 1];
+		return day > maxDay ? INVALID_DATE : year * 10000 + month * 100 + day;
+	}
+
+	/**
+	 * Checks if an e-mail address matches {@code Constants.EMAIL_REGEX}:
+	 * one or more of {@code [A-Za-z0-9+_.-]}, a single {@code @}, then one or
+	 * more of {@code [A-Za-z0-9.-]}.
+	 *
+	 * @param email the address
+	 * @return true if valid; false for null or blank values
+	 */
+	public static boolean isValidEmail(String email) {
+		if (email == null) {
+			return false;
+		}
+		int length = email.length();
+		int at = -1;
+		for (int i = 0; i < length; i++) {
+			char c = email.charAt(i);
+			if (c == '@') {
+				if (at >= 0 || i == 0) {
+					return false; // second @ or empty local part
+				}
+				at = i;
+				continue;
+			}
+			int allowed = at < 0 ? EMAIL_LOCAL : EMAIL_DOMAIN;
+			if (c >= 128 || (EMAIL_CHARS[c] & allowed) == 0) {
+				return false;
+			}
+		}
+		return at > 0 && at < length - 1;
+	}
+
+	/**
+	 * Reads a fixed number of ASCII digits.
+	 *
+	 * @param value  the text
+	 * @param offset first digit
+	 * @param count  number of digits
+	 * @return the number, or a negative value if a character is not a digit
+	 */
+	private static int digits(String value, int offset, int count) {
+		int result = 0;
+		for (int i = offset; i < offset + count; i++) {
+			int digit = value.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			result = result * 10 + digit;
+		}
+		return result;
+	}
+
+	/**
+	 * Checks for a leap year of the proleptic Gregorian calendar.
+	 *
+	 * @param year the year
+	 * @return true if February has 29 days
+	 */
+	private static boolean isLeapYear(int year) {
+		return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+	}
+}
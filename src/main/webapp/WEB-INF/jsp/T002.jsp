@@ -248,10 +248,16 @@
 					<!-- Delete -->
 					<logic:notEmpty name="T002Form" property="customers">
 						<html:form action="/T002" method="post">
-							<html:hidden property="action" value="remove" />
+							<html:hidden property="action" value="remove" styleId="hdnRemoveAction" />
 							<html:submit property="btnDelete" styleId="btnDelete">
 								<bean:message key="label.delete" />
 							</html:submit>
+							<html:button property="btnDeleteMatching" styleId="btnDeleteMatching"
+								onclick="deleteAllMatching(this)">
+								<bean:message key="label.deleteMatching" />
+							</html:button>
+							<span id="deleteMatchingConfirm" style="display: none"><bean:message
+									key="label.deleteMatching.confirm" /></span>
 						</html:form>
 					</logic:notEmpty>
 					<logic:empty name="T002Form" property="customers">
@@ -262,6 +268,19 @@
 					</logic:empty>
 				</div>
 
+				<div class="action-group">
+					<!-- Restore archived customers -->
+					<html:form action="/T002" method="post" style="display:inline;">
+						<html:hidden property="action" value="restore" />
+						<label> <bean:message key="label.restoreIds" /> <html:text
+								property="restoreIds" styleId="txtRestoreIds" value="" />
+						</label>
+						<html:submit property="btnRestore" styleId="btnRestore">
+							<bean:message key="label.restore" />
+						</html:submit>
+					</html:form>
+				</div>
+
 				<div class="action-group">
 					<!-- Export -->
 					<html:form action="/T002" method="post" style="display:inline;">
@@ -101,6 +101,20 @@ body {
     text-align: left;
 }
 
+.import-progress {
+    width: 500px;
+    margin: 20px auto 0;
+    padding: 10px 25px;
+    border: 1px solid #ddd;
+    border-radius: 12px;
+    background-color: #fafafa;
+    font-size: 14px;
+}
+
+.import-progress span {
+    margin-left: 15px;
+}
+
 .form-actions {
     display: flex;
     justify-content: center;
@@ -109,6 +123,7 @@ body {
 }
 
 #btnImport,
+#btnDryRun,
 #btnCancel {
     padding: 8px 20px;
     border: none;
@@ -127,6 +142,16 @@ body {
     background-color: #0056b3;
 }
 
+#btnDryRun {
+    background-color: #ffffff;
+    color: #007bff;
+    border: 1px solid #007bff;
+}
+
+#btnDryRun:hover {
+    background-color: #e7f1ff;
+}
+
 #btnCancel {
     background-color: #e0e0e0;
     color: #333;
@@ -162,10 +187,29 @@ body {
         <div id="errorMessages" style="display: none">
 			<html:errors />
 		</div>
+
+		<logic:present name="jobId" scope="request">
+			<div id="importProgress" class="import-progress"
+				data-progress-url="<%=request.getContextPath()%>/T004.do?action=progress&amp;jobId=${jobId}"
+				data-result-url="<%=request.getContextPath()%>/T004.do?action=result&amp;jobId=${jobId}">
+				<bean:message key="T004.label.importRunning" />
+				<span><bean:message key="T004.label.rowsParsed" />: <span id="rowsParsed">0</span></span>
+				<span><bean:message key="T004.label.rowsValidated" />: <span id="rowsValidated">0</span></span>
+				<span><bean:message key="T004.label.rowsWritten" />: <span id="rowsWritten">0</span></span>
+			</div>
+		</logic:present>
+
+		<logic:present name="errorReport" scope="request">
+			<div class="import-progress">
+				<a href="<%=request.getContextPath()%>/T004.do?action=errorReport&amp;jobId=${errorReport}">
+					<bean:message key="T004.label.downloadErrorReport" />
+				</a>
+			</div>
+		</logic:present>
         
 		<div class="form-container">
 			<html:form action="/T004" method="post" enctype="multipart/form-data" styleId="customerForm">
-				<html:hidden property="action" value="import"/>
+				<html:hidden property="action" value="import" styleId="hdnAction"/>
 				<div class="form-row">
 					<div class="file-input-container">
 						
@@ -176,13 +220,23 @@ body {
 						</label>
 					</div>
 				</div>
-				
+
+				<div class="form-row">
+					<label>
+						<html:checkbox property="chunkedCommit" styleId="chkChunkedCommit" />
+						<bean:message key="T004.label.chunkedCommit" />
+					</label>
+				</div>
 
 				<div class="form-actions">
 					<html:submit property="btnImport" styleId="btnImport">
 						Import
 					</html:submit>
 
+					<html:button styleId="btnDryRun" property="btnDryRun" onclick="submitDryRun()">
+						<bean:message key="T004.label.dryRun" />
+					</html:button>
+
 					<html:button styleId="btnCancel" property="btnCancel"
 						onclick="window.location.href='/Struts-blank/T002.do';">Cancel</html:button>
 
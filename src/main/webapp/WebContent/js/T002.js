@@ -13,6 +13,19 @@ document.addEventListener("DOMContentLoaded", function () {
 		}
 	});
 
+	/**
+	 * Deletes every customer matching the current search on the server,
+	 * after confirmation; no IDs are sent from the page.
+	 */
+	function deleteAllMatching(button) {
+		var confirmText = document.getElementById("deleteMatchingConfirm").textContent.trim();
+		if (!confirm(confirmText)) {
+			return;
+		}
+		document.getElementById("hdnRemoveAction").value = "removeMatching";
+		button.form.submit();
+	}
+
 	function toggleAll(source) {
 		const checkboxes = document.querySelectorAll('input[name="customerIds"]');
 		checkboxes.forEach(chk => chk.checked = source.checked);
@@ -12,3 +12,51 @@ document.addEventListener("DOMContentLoaded", function () {
 			alert(errors);
 		}
 	});
+
+/**
+ * Submits the import form as a dry run: the file is validated and the
+ * expected counts are reported, but nothing is written.
+ */
+function submitDryRun() {
+	document.getElementById("hdnAction").value = "dryRun";
+	document.getElementById("customerForm").submit();
+}
+
+/**
+ * Polls the progress of a running import job, shown while the import page
+ * has an #importProgress element, and opens the job's result page when the
+ * job is done.
+ */
+document.addEventListener("DOMContentLoaded", function () {
+	var progress = document.getElementById("importProgress");
+	if (!progress) {
+		return;
+	}
+	var progressUrl = progress.getAttribute("data-progress-url");
+	var resultUrl = progress.getAttribute("data-result-url");
+
+	function poll() {
+		var xhr = new XMLHttpRequest();
+		xhr.open("GET", progressUrl, true);
+		xhr.onload = function () {
+			if (xhr.status !== 200) {
+				window.location.href = resultUrl; // unknown job: the page shows why
+				return;
+			}
+			var job = JSON.parse(xhr.responseText);
+			document.getElementById("rowsParsed").textContent = job.parsed;
+			document.getElementById("rowsValidated").textContent = job.validated;
+			document.getElementById("rowsWritten").textContent = job.written;
+			if (job.finished) {
+				window.location.href = resultUrl;
+			} else {
+				setTimeout(poll, 1000);
+			}
+		};
+		xhr.onerror = function () {
+			setTimeout(poll, 3000);
+		};
+		xhr.send();
+	}
+	poll();
+});